@@ -2,8 +2,10 @@ package be.technobel.corder;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class CorderApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,186 @@
+package be.technobel.corder.bl.impl;
+
+import be.technobel.corder.bl.mail.OutgoingMail;
+import be.technobel.corder.bl.services.MailOutboxService;
+import be.technobel.corder.bl.services.MailService;
+import be.technobel.corder.dl.models.OutboxMail;
+import be.technobel.corder.dl.models.enums.MailStatus;
+import be.technobel.corder.dl.repositories.OutboxMailRepository;
+import be.technobel.corder.pl.config.exceptions.MailRelayUnavailableException;
+import be.technobel.corder.pl.config.exceptions.SmtpPoolExhaustedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of the MailOutboxService interface.
+ * Mails are stored with the transaction of the caller and sent later, retried with an exponential backoff
+ * and moved to the DEAD state once the maximum number of attempts is reached.
+ */
+@Service
+public class MailOutboxServiceImpl implements MailOutboxService {
+
+    private final OutboxMailRepository outboxMailRepository;
+    private final MailService mailService;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+
+    public MailOutboxServiceImpl(
+            OutboxMailRepository outboxMailRepository,
+            MailService mailService,
+            @Value("${api.mail.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${api.mail.outbox.initial-backoff:30s}") Duration initialBackoff,
+            @Value("${api.mail.outbox.max-backoff:1h}") Duration maxBackoff,
+            @Value("${api.mail.outbox.lease:5m}") Duration lease
+    ) {
+        this.outboxMailRepository = outboxMailRepository;
+        this.mailService = mailService;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.lease = lease;
+    }
+
+    /**
+     * Adds a mail to the outbox. Joins the transaction of the caller, so the mail is only sent if that transaction commits.
+     *
+     * @param to            the recipient's email address
+     * @param subject       the subject of the email
+     * @param content       the content of the email
+     * @param isHtmlContent true if the email content is HTML, false otherwise
+     */
+    @Transactional
+    @Override
+    public void enqueue(String to, String subject, String content, boolean isHtmlContent) {
+        LocalDateTime now = LocalDateTime.now();
+        outboxMailRepository.save(OutboxMail.builder()
+                .recipient(to)
+                .subject(subject)
+                .content(content)
+                .htmlContent(isHtmlContent)
+                .status(MailStatus.PENDING)
+                .attempts(0)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build());
+    }
+
+    /**
+     * Claims up to the given number of due mails for this instance.
+     *
+     * @param limit the maximum number of mails to claim
+     * @return the ids of the claimed mails
+     */
+    @Override
+    public List<Long> claimDue(int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return outboxMailRepository.claimDue(now, now.plus(lease), limit);
+    }
+
+    /**
+     * Sends a batch of claimed mails over a single SMTP connection. No transaction is held during the SMTP exchange.
+     * Each failed mail is rescheduled with an exponential backoff, or marked DEAD after the last attempt.
+     * A batch refused by the circuit breaker, or that found every SMTP connection busy, was never attempted:
+     * it is handed back without counting an attempt.
+     *
+     * @param ids the ids of the mails to send
+     */
+    @Override
+    public void dispatch(List<Long> ids) {
+        List<OutboxMail> mails = outboxMailRepository.findAllById(ids)
+                .stream()
+                .filter(mail -> mail.getStatus() == MailStatus.SENDING)
+                .toList();
+        if (mails.isEmpty()) {
+            return;
+        }
+
+        List<OutgoingMail> outgoing = mails.stream()
+                .map(mail -> new OutgoingMail(mail.getRecipient(), mail.getSubject(), mail.getContent(), mail.isHtmlContent()))
+                .toList();
+
+        Map<Object, Exception> failures = Map.of();
+        RuntimeException batchFailure = null;
+        try {
+            mailService.sendMails(outgoing);
+        } catch (MailRelayUnavailableException | SmtpPoolExhaustedException e) {
+            LocalDateTime now = LocalDateTime.now();
+            for (OutboxMail mail : mails) {
+                mail.setStatus(MailStatus.PENDING);
+                mail.setNextAttemptAt(now);
+            }
+            outboxMailRepository.saveAll(mails);
+            return;
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+            if (failures.isEmpty()) {
+                batchFailure = e;
+            }
+        } catch (RuntimeException e) {
+            batchFailure = e;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < mails.size(); i++) {
+            OutboxMail mail = mails.get(i);
+            Exception failure = batchFailure != null ? batchFailure : failures.get(i);
+            if (failure == null) {
+                mail.setStatus(MailStatus.SENT);
+                mail.setSentAt(now);
+                mail.setLastError(null);
+            } else {
+                markFailed(mail, failure, now);
+            }
+        }
+        outboxMailRepository.saveAll(mails);
+    }
+
+    /**
+     * Records a failed attempt, rescheduling the mail or moving it to the dead letters.
+     *
+     * @param mail    the mail that could not be sent
+     * @param failure the cause of the failure
+     * @param now     the time of the attempt
+     */
+    private void markFailed(OutboxMail mail, Exception failure, LocalDateTime now) {
+        int attempts = mail.getAttempts() + 1;
+        mail.setAttempts(attempts);
+        mail.setLastError(truncate(failure.getMessage()));
+        if (attempts >= maxAttempts) {
+            mail.setStatus(MailStatus.DEAD);
+        } else {
+            mail.setStatus(MailStatus.PENDING);
+            mail.setNextAttemptAt(now.plus(backoff(attempts)));
+        }
+    }
+
+    /**
+     * Computes the delay before the next attempt, doubling after each failure up to the maximum backoff.
+     *
+     * @param attempts the number of failed attempts so far
+     * @return the delay before the next attempt
+     */
+    Duration backoff(int attempts) {
+        int shift = Math.min(attempts - 1, 30);
+        Duration delay = initialBackoff.multipliedBy(1L << shift);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private String truncate(String message) {
+        if (message == null || message.length() <= 1000) {
+            return message;
+        }
+        return message.substring(0, 1000);
+    }
+}
@@ -1,29 +1,44 @@
 package be.technobel.corder.bl.impl;
 
+import be.technobel.corder.bl.mail.MailCircuitBreaker;
+import be.technobel.corder.bl.mail.MailTemplateCache;
+import be.technobel.corder.bl.mail.OutgoingMail;
+import be.technobel.corder.bl.mail.SmtpTransportPool;
+import be.technobel.corder.bl.mail.TemplateRenderMetrics;
 import be.technobel.corder.bl.services.MailService;
+import be.technobel.corder.pl.config.exceptions.MailRelayUnavailableException;
+import be.technobel.corder.pl.config.exceptions.SmtpPoolExhaustedException;
 import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
 import jakarta.mail.internet.MimeMessage;
 import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
 
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * MailServiceImpl is an implementation of the MailService interface.
  * It provides methods for sending emails and building email templates.
+ * Mails are sent over pooled SMTP connections, and fail fast while the circuit breaker considers the relay down.
+ * Templates are rendered from the pre-rendered fragments of the MailTemplateCache.
  */
 @Service
 public class MailServiceImpl implements MailService {
     private final JavaMailSender mailSender;
-    private final TemplateEngine templateEngine;
+    private final MailTemplateCache templateCache;
+    private final SmtpTransportPool transportPool;
+    private final MailCircuitBreaker circuitBreaker;
 
-    public MailServiceImpl(JavaMailSender mailSender, TemplateEngine templateEngine) {
+    public MailServiceImpl(JavaMailSender mailSender, MailTemplateCache templateCache, SmtpTransportPool transportPool, MailCircuitBreaker circuitBreaker) {
         this.mailSender = mailSender;
-        this.templateEngine = templateEngine;
+        this.templateCache = templateCache;
+        this.transportPool = transportPool;
+        this.circuitBreaker = circuitBreaker;
     }
 
     /**
@@ -37,19 +52,95 @@ public class MailServiceImpl implements MailService {
      */
     @Override
     public void sendMail(String to, String subject, String content, boolean isHtmlContent) {
+        sendMails(List.of(new OutgoingMail(to, subject, content, isHtmlContent)));
+    }
+
+    /**
+     * Sends several emails in a row over a single pooled SMTP connection.
+     * A mail rejected by the relay does not prevent the others from being sent.
+     *
+     * @param mails the emails to send
+     * @throws MailRelayUnavailableException if the circuit breaker refuses the send, no email was attempted
+     * @throws SmtpPoolExhaustedException     if no pooled connection became available in time, no email was attempted
+     * @throws MailSendException              if at least one email could not be sent, its failed messages map the index
+     *                                        of each failed email in the list to its cause
+     */
+    @Override
+    public void sendMails(List<OutgoingMail> mails) {
+        if (mails.isEmpty()) {
+            return;
+        }
+        if (!circuitBreaker.allowRequest()) {
+            throw new MailRelayUnavailableException("Le relais SMTP est indisponible");
+        }
+
+        Map<Object, Exception> failures = new LinkedHashMap<>();
+        int[] next = {0};
+        boolean reachable = false;
+        boolean attempted = true;
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message);
-            helper.setFrom("info@corder.be");
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(content, isHtmlContent);
-            mailSender.send(message);
-        } catch (MessagingException e) {
-            throw new MailSendException("Failed to send email", e);
+            transportPool.execute(transport -> {
+                for (; next[0] < mails.size(); next[0]++) {
+                    MimeMessage message;
+                    try {
+                        message = toMimeMessage(mails.get(next[0]));
+                    } catch (MessagingException e) {
+                        failures.put(next[0], e);
+                        continue;
+                    }
+                    try {
+                        transport.sendMessage(message, message.getAllRecipients());
+                    } catch (SendFailedException e) {
+                        // refused by the relay, the connection is still usable
+                        failures.put(next[0], e);
+                    }
+                }
+                return null;
+            });
+            reachable = true;
+        } catch (SmtpPoolExhaustedException e) {
+            // every connection is busy, this says nothing about the relay
+            attempted = false;
+            throw e;
+        } catch (MessagingException | MailSendException e) {
+            for (int i = next[0]; i < mails.size(); i++) {
+                failures.put(i, e);
+            }
+        } finally {
+            // any outcome, including an unexpected exception, ends a half-open trial
+            if (!attempted) {
+                circuitBreaker.abandonTrial();
+            } else if (reachable) {
+                circuitBreaker.recordSuccess();
+            } else {
+                circuitBreaker.recordFailure();
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            throw new MailSendException("Failed to send email", null, failures);
         }
     }
 
+    /**
+     * Builds the MIME message of a mail, ready to be handed to an SMTP transport.
+     *
+     * @param mail the mail to convert
+     * @return the MIME message
+     * @throws MessagingException if the mail cannot be converted
+     */
+    private MimeMessage toMimeMessage(OutgoingMail mail) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message);
+        helper.setFrom("info@corder.be");
+        helper.setTo(mail.to());
+        helper.setSubject(mail.subject());
+        helper.setText(mail.content(), mail.isHtmlContent());
+        message.setSentDate(new Date());
+        message.saveChanges();
+        return message;
+    }
+
     /**
      * Builds an email template by processing the given template with the provided variables.
      *
@@ -59,8 +150,16 @@ public class MailServiceImpl implements MailService {
      */
     @Override
     public String buildEmailTemplate(String template, Map<String, Object> variables) {
-        Context context = new Context();
-        context.setVariables(variables);
-        return templateEngine.process(template, context);
+        return templateCache.render(template, variables);
+    }
+
+    /**
+     * Retrieves the render metrics of the email templates.
+     *
+     * @return the render metrics of every template rendered since startup
+     */
+    @Override
+    public List<TemplateRenderMetrics> templateMetrics() {
+        return List.copyOf(templateCache.metrics().values());
     }
 }
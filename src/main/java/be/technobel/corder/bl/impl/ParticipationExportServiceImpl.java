@@ -0,0 +1,117 @@
+package be.technobel.corder.bl.impl;
+
+import be.technobel.corder.bl.services.ParticipationExportService;
+import be.technobel.corder.dl.models.enums.ExportFormat;
+import be.technobel.corder.dl.models.enums.Status;
+import be.technobel.corder.dl.models.projections.ParticipationExportRow;
+import be.technobel.corder.dl.repositories.ParticipationRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exports participations row by row while they are read from the database, so the memory used
+ * does not depend on the number of exported participations.
+ */
+@Service
+public class ParticipationExportServiceImpl implements ParticipationExportService {
+
+    private static final String CSV_HEADER = "id,participationDate,firstName,lastName,email,street,city,postCode,productType,status,statusUpdateDate";
+
+    private final ParticipationRepository participationRepository;
+    private final ObjectWriter jsonWriter;
+    private final TransactionOperations transactionOperations;
+
+    public ParticipationExportServiceImpl(ParticipationRepository participationRepository, ObjectMapper objectMapper, TransactionOperations transactionOperations) {
+        this.participationRepository = participationRepository;
+        this.jsonWriter = objectMapper.writerFor(ParticipationExportRow.class);
+        this.transactionOperations = transactionOperations;
+    }
+
+    /**
+     * Writes the participations with the given status to the output, in the order of their id.
+     * The rows are fetched from a database cursor by batches and written as soon as they are read.
+     *
+     * @param status The status of the exported participations, or null for all of them.
+     * @param format The format of the export.
+     * @param output The output, which is not closed.
+     * @throws IOException If the output cannot be written.
+     */
+    @Override
+    public void export(Status status, ExportFormat format, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        try {
+            // the cursor is only open within a transaction
+            transactionOperations.executeWithoutResult(transaction -> {
+                try (Stream<ParticipationExportRow> rows = participationRepository.streamExportRows(status)) {
+                    write(rows.iterator(), format, writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void write(Iterator<ParticipationExportRow> rows, ExportFormat format, Writer writer) throws IOException {
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write("\r\n");
+        }
+        while (rows.hasNext()) {
+            ParticipationExportRow row = rows.next();
+            if (format == ExportFormat.CSV) {
+                writeCsv(row, writer);
+            } else {
+                writer.write(jsonWriter.writeValueAsString(row));
+                writer.write('\n');
+            }
+        }
+    }
+
+    private void writeCsv(ParticipationExportRow row, Writer writer) throws IOException {
+        Object[] values = {
+                row.id(),
+                row.participationDate(),
+                row.firstName(),
+                row.lastName(),
+                row.email(),
+                row.street(),
+                row.city(),
+                row.postCode(),
+                row.productType(),
+                row.status(),
+                row.statusUpdateDate()
+        };
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writer.write(csvField(values[i].toString()));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Quotes a CSV field when needed. Fields a spreadsheet would evaluate as a formula are prefixed with a quote.
+     */
+    static String csvField(String value) {
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -1,30 +1,80 @@
 package be.technobel.corder.bl.impl;
 
+import be.technobel.corder.bl.services.MailOutboxService;
 import be.technobel.corder.bl.services.MailService;
 import be.technobel.corder.bl.services.ParticipationService;
+import be.technobel.corder.bl.services.PhotoContentService;
+import be.technobel.corder.bl.services.ThumbnailService;
+import be.technobel.corder.bl.stats.ParticipationChangedEvent;
+import be.technobel.corder.bl.stats.StatsCache;
+import be.technobel.corder.bl.stats.StatsSections;
+import be.technobel.corder.bl.stats.StatsSections.Section;
+import be.technobel.corder.bl.storage.PhotoStore;
+import be.technobel.corder.bl.storage.PhotoStoredEvent;
+import be.technobel.corder.bl.storage.SpooledPhoto;
+import be.technobel.corder.bl.storage.StoredPhoto;
+import be.technobel.corder.bl.utils.ParticipationCursor;
+import be.technobel.corder.bl.utils.StatBuckets;
+import be.technobel.corder.bl.utils.StripedLock;
 import be.technobel.corder.dl.models.Address;
 import be.technobel.corder.dl.models.Participation;
+import be.technobel.corder.dl.models.ParticipationPhoto;
+import be.technobel.corder.dl.models.ParticipationStatKey;
+import be.technobel.corder.dl.models.ParticipationStatusEvent;
+import be.technobel.corder.dl.models.PhotoThumbnail;
+import be.technobel.corder.dl.models.ShipmentClaim;
+import be.technobel.corder.dl.models.enums.Granularity;
+import be.technobel.corder.dl.models.enums.Province;
 import be.technobel.corder.dl.models.enums.Status;
+import be.technobel.corder.dl.models.enums.ThumbnailSize;
+import be.technobel.corder.dl.models.projections.DayCount;
+import be.technobel.corder.dl.models.projections.KeyCount;
+import be.technobel.corder.dl.models.projections.NumberCount;
+import be.technobel.corder.dl.models.projections.ParticipationDetail;
+import be.technobel.corder.dl.models.projections.ParticipationKeys;
+import be.technobel.corder.dl.models.projections.ParticipationStatus;
+import be.technobel.corder.dl.models.projections.ParticipationSummary;
+import be.technobel.corder.dl.models.projections.PhotoUsage;
+import be.technobel.corder.dl.models.projections.StatSource;
+import be.technobel.corder.dl.models.projections.StatusTransition;
+import be.technobel.corder.dl.repositories.ParticipationPhotoRepository;
+import be.technobel.corder.dl.repositories.ParticipationFilter;
 import be.technobel.corder.dl.repositories.ParticipationRepository;
+import be.technobel.corder.dl.repositories.ParticipationStatRepository;
+import be.technobel.corder.dl.repositories.ParticipationStatusEventRepository;
+import be.technobel.corder.dl.repositories.ShipmentClaimRepository;
 import be.technobel.corder.pl.config.exceptions.DuplicateParticipationException;
 import be.technobel.corder.pl.config.exceptions.PhotoException;
+import be.technobel.corder.pl.config.exceptions.PhotoTooLargeException;
+import be.technobel.corder.pl.config.exceptions.StatusConflictException;
+import be.technobel.corder.pl.models.dtos.BulkRejectionDTO;
+import be.technobel.corder.pl.models.dtos.BulkTransitionDTO;
 import be.technobel.corder.pl.models.dtos.DashboardDTO;
+import be.technobel.corder.pl.models.dtos.LeadTimeDTO;
+import be.technobel.corder.pl.models.dtos.ParticipationDTO;
+import be.technobel.corder.pl.models.dtos.ParticipationPageDTO;
 import be.technobel.corder.pl.models.dtos.StatsDTO;
 import be.technobel.corder.pl.models.forms.ParticipationForm;
 import be.technobel.corder.pl.models.forms.SatisfactionForm;
 import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import java.time.YearMonth;
+import java.util.*;
 
 /**
  * This class implements the ParticipationService interface and provides the functionality for managing participations.
@@ -32,39 +82,81 @@ import java.util.Map;
 @Service
 public class ParticipationServiceImpl implements ParticipationService {
 
+    private static final Logger log = LoggerFactory.getLogger(ParticipationServiceImpl.class);
+
+    /**
+     * Number of locks shared by all admissions, two participants only wait for each other when their keys share a stripe.
+     */
+    private static final int ADMISSION_STRIPES = 256;
+
+    /**
+     * Maximum number of periods of a time series, about ten years of days.
+     */
+    private static final int MAX_TIME_SERIES_PERIODS = 3700;
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    /**
+     * Maximum number of participations changed by a bulk status change, and number of participations changed per UPDATE statement.
+     */
+    private static final int MAX_BULK_SIZE = 10_000;
+    private static final int BULK_CHUNK_SIZE = 500;
+
+    private static final List<String> KNOWN_PRODUCT_TYPES = List.of("Insecticide", "Herbicide", "Fongicide");
+
     private final ParticipationRepository participationRepository;
+    private final ParticipationPhotoRepository participationPhotoRepository;
+    private final ParticipationStatRepository participationStatRepository;
+    private final ParticipationStatusEventRepository participationStatusEventRepository;
+    private final ShipmentClaimRepository shipmentClaimRepository;
+    private final PhotoStore photoStore;
     private final MailService mailService;
+    private final MailOutboxService mailOutboxService;
+    private final PhotoContentService photoContentService;
+    private final ThumbnailService thumbnailService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StatsCache statsCache;
+    private final StatsSections statsSections;
+    private final TransactionOperations transactionOperations;
+    private final StripedLock admissionLocks = new StripedLock(ADMISSION_STRIPES);
 
-    public ParticipationServiceImpl(ParticipationRepository participationRepository, MailService mailService) {
+    public ParticipationServiceImpl(ParticipationRepository participationRepository, ParticipationPhotoRepository participationPhotoRepository, ParticipationStatRepository participationStatRepository, ParticipationStatusEventRepository participationStatusEventRepository, ShipmentClaimRepository shipmentClaimRepository, PhotoStore photoStore, MailService mailService, MailOutboxService mailOutboxService, PhotoContentService photoContentService, ThumbnailService thumbnailService, ApplicationEventPublisher eventPublisher, StatsCache statsCache, StatsSections statsSections, TransactionOperations transactionOperations) {
         this.participationRepository = participationRepository;
+        this.participationPhotoRepository = participationPhotoRepository;
+        this.participationStatRepository = participationStatRepository;
+        this.participationStatusEventRepository = participationStatusEventRepository;
+        this.shipmentClaimRepository = shipmentClaimRepository;
+        this.photoStore = photoStore;
         this.mailService = mailService;
+        this.mailOutboxService = mailOutboxService;
+        this.photoContentService = photoContentService;
+        this.thumbnailService = thumbnailService;
+        this.eventPublisher = eventPublisher;
+        this.statsCache = statsCache;
+        this.statsSections = statsSections;
+        this.transactionOperations = transactionOperations;
     }
 
     /**
      * Checks if the given participation is unique based on the email and address.
+     * Both normalized keys are looked up in a single query backed by the unique indexes of the participation table.
      *
-     * @param participation The participation to check for uniqueness.
+     * @param participation The participation to check for uniqueness, with its email and address keys set.
      * @throws DuplicateParticipationException If the participation is not unique based on the email or address.
      */
     private void isUniqueParticipant(Participation participation) {
 
-        String email = formatEmail(participation);
-
-        List<String> emails = findAll().stream()
-                .map(this::formatEmail)
-                .toList();
+        List<ParticipationKeys> matches = participationRepository.findKeysByEmailKeyOrAddressKey(
+                participation.getEmailKey(),
+                participation.getAddressKey()
+        );
 
-        if (emails.contains(email)) {
+        if (matches.stream().anyMatch(keys -> participation.getEmailKey().equals(keys.emailKey()))) {
             throw new DuplicateParticipationException("Ce participant a déjà joué avec cet email !");
         }
 
-        String address = formatAddress(participation);
-
-        List<String> addresses = findAll().stream()
-                .map(this::formatAddress)
-                .toList();
-
-        if (addresses.contains(address)) {
+        if (!matches.isEmpty()) {
             throw new DuplicateParticipationException("Ce foyer a déjà une participation !");
         }
     }
@@ -94,15 +186,21 @@ public class ParticipationServiceImpl implements ParticipationService {
 
     /**
      * Creates a new participation based on the provided participation form.
+     * The admission holds the locks of the participant's email and address keys until its transaction is committed,
+     * so two concurrent requests for the same participant or household are checked one after the other.
+     * The unique constraints of the participation table remain the final safeguard, for example between several instances.
+     * The confirmation mail is put in the outbox, the participation counted in the statistics and its creation logged in
+     * the status history within the same transaction, the mail being sent in the background.
      *
      * @param participationForm The participation form used to create the participation.
      * @return The created participation.
+     * @throws DuplicateParticipationException If the participant or the household already has a participation.
      */
     @Override
     public Participation create(ParticipationForm participationForm) {
         Participation participation = participationForm.toEntity();
-
-        isUniqueParticipant(participationForm.toEntity());
+        participation.setEmailKey(formatEmail(participation));
+        participation.setAddressKey(formatAddress(participation));
 
         participation.setStatus(Status.PENDING);
         participation.setParticipationDate(LocalDate.now());
@@ -111,19 +209,135 @@ public class ParticipationServiceImpl implements ParticipationService {
         Map<String, Object> variables = new HashMap<>();
         variables.put("greeting", "Merci " + participationForm.firstName() + " !");
         String content = mailService.buildEmailTemplate("email-validation-template", variables);
-        mailService.sendMail(participationForm.email(), "Merci pour votre participation !", content, true);
 
-        return participationRepository.save(participation);
+        return admissionLocks.withLocks(
+                () -> transactionOperations.execute(status -> {
+                    Participation saved = admit(participation);
+                    participationStatusEventRepository.save(ParticipationStatusEvent.builder()
+                            .participationId(saved.getId())
+                            .toStatus(Status.PENDING)
+                            .occurredAt(LocalDateTime.now())
+                            .build());
+                    countInStats(saved, 1);
+                    eventPublisher.publishEvent(new ParticipationChangedEvent(saved.getId()));
+                    mailOutboxService.enqueue(participationForm.email(), "Merci pour votre participation !", content, true);
+                    return saved;
+                }),
+                participation.getEmailKey(),
+                participation.getAddressKey()
+        );
+    }
+
+    /**
+     * Checks the uniqueness of a participation and saves it. Must be called while holding the admission locks of its keys.
+     *
+     * @param participation The participation to save, with its email and address keys set.
+     * @return The saved participation.
+     * @throws DuplicateParticipationException If the participation is not unique, including when a unique key constraint is violated.
+     * @throws DataIntegrityViolationException If any other constraint is violated.
+     */
+    private Participation admit(Participation participation) {
+        isUniqueParticipant(participation);
+        try {
+            return participationRepository.saveAndFlush(participation);
+        } catch (DataIntegrityViolationException e) {
+            String cause = String.valueOf(e.getMostSpecificCause().getMessage());
+            if (cause.contains("uk_participation_email_key")) {
+                throw new DuplicateParticipationException("Ce participant a déjà joué avec cet email !");
+            }
+            if (cause.contains("uk_participation_address_key")) {
+                throw new DuplicateParticipationException("Ce foyer a déjà une participation !");
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Retrieves the columns of a participation shown on its detail page, with its address, in a single query
+     * that does not load the entity.
+     *
+     * @param id The id of the participation.
+     * @return The detail of the participation.
+     * @throws EntityNotFoundException If no participation with the given id is found.
+     */
+    @Override
+    public ParticipationDetail findDetailById(Long id) {
+        return participationRepository.findDetailById(id).orElseThrow(() -> new EntityNotFoundException("Participation avec l'id: " + id + " introuvable"));
     }
 
     /**
-     * Retrieves all participations.
+     * Adds delta to the statistics bucket of a participation. A participation is removed from its bucket before
+     * being modified and added again afterwards, within the same transaction as the modification.
      *
-     * @return List of Participation objects representing all participations.
+     * @param participation The participation.
+     * @param delta         1 to count the participation, -1 to stop counting it.
+     */
+    private void countInStats(Participation participation, long delta) {
+        incrementStat(StatBuckets.keyOf(participation), delta);
+    }
+
+    private void incrementStat(ParticipationStatKey key, long delta) {
+        participationStatRepository.increment(
+                key.getDay(),
+                key.getProvince(),
+                key.getProductType(),
+                key.getSatisfaction(),
+                key.getCommentCategory(),
+                key.getStatus().name(),
+                delta
+        );
+    }
+
+    /**
+     * Rebuilds the statistics table from the participations, in a single grouped query.
+     * The table is locked until the end of the transaction, so no participation written meanwhile is counted twice or missed.
      */
+    @Transactional
     @Override
-    public List<Participation> findAll() {
-        return participationRepository.findAll();
+    public void rebuildStats() {
+        participationStatRepository.lockTable();
+        participationStatRepository.deleteAllInBatch();
+        Map<ParticipationStatKey, Long> buckets = new HashMap<>();
+        for (StatSource source : participationRepository.countStatSources()) {
+            buckets.merge(StatBuckets.keyOf(source), source.count(), Long::sum);
+        }
+        buckets.forEach(this::incrementStat);
+        eventPublisher.publishEvent(new ParticipationChangedEvent(null));
+        log.info("Statistiques reconstruites : {} groupes", buckets.size());
+    }
+
+    /**
+     * Retrieves a page of participations, from the most recent, with the columns shown in the list and their address,
+     * in a single query that does not load the entities. Pages are delimited by the participation date and id of the
+     * last participation of the previous page rather than by an offset, so every page costs the same as the first one.
+     *
+     * @param filter The criteria of the participations.
+     * @param cursor The cursor returned with the previous page, or null for the first page.
+     * @param size   The number of participations of the page, or null for the default size.
+     * @return The page, with the cursor of the next page when there may be more participations.
+     * @throws IllegalArgumentException If the cursor is malformed or the size is out of bounds.
+     */
+    @Override
+    public ParticipationPageDTO findPage(ParticipationFilter filter, String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("La taille de page doit être comprise entre 1 et " + MAX_PAGE_SIZE);
+        }
+        ParticipationCursor after = cursor == null ? null : ParticipationCursor.decode(cursor);
+        List<ParticipationSummary> summaries = participationRepository.findSummaries(
+                filter,
+                after == null ? null : after.participationDate(),
+                after == null ? null : after.id(),
+                pageSize + 1
+        );
+
+        boolean hasNext = summaries.size() > pageSize;
+        List<ParticipationSummary> page = hasNext ? summaries.subList(0, pageSize) : summaries;
+        ParticipationSummary last = hasNext ? page.get(pageSize - 1) : null;
+        return new ParticipationPageDTO(
+                page.stream().map(ParticipationDTO::fromSummary).toList(),
+                last == null ? null : new ParticipationCursor(last.participationDate(), last.id()).encode()
+        );
     }
 
     /**
@@ -140,23 +354,127 @@ public class ParticipationServiceImpl implements ParticipationService {
     }
 
     /**
-     * Adds a photo to a participation by setting the photo's bytes, original filename, and content type.
+     * Adds a photo to a participation by streaming its bytes to the photo store and saving its original filename,
+     * content type and size. A photo already attached to the participation is replaced.
+     * The upload is never loaded in memory, its size and key are computed while it is copied.
+     * Photos are stored once per content: a photo identical to one already stored only adds a reference to it,
+     * and uploading again the current photo of the participation changes nothing.
+     * Its thumbnails are generated in the background once the transaction is committed.
      *
-     * @param photo The photo to be added.
-     * @param id    The ID of the participation to which the photo is added.
-     * @throws PhotoException If there is an error adding the photo to the participation.
+     * @param photo  The photo to be added.
+     * @param id     The ID of the participation to which the photo is added.
+     * @param digest The SHA-256 digest of the photo announced by the client, or null. When it matches the current photo
+     *               of the participation, the upload is not even read.
+     * @throws PhotoException         If there is an error adding the photo to the participation.
+     * @throws PhotoTooLargeException If the photo exceeds the maximum size of the photo store.
      */
+    @Transactional
     @Override
-    public void addPhoto(MultipartFile photo, Long id) {
-        try {
-            Participation entity = findById(id);
-            entity.setBlob(photo.getBytes());
-            entity.setPictureName(photo.getOriginalFilename());
-            entity.setPictureType(photo.getContentType());
-            participationRepository.save(entity);
+    public void addPhoto(MultipartFile photo, Long id, String digest) {
+        Participation participation = findById(id);
+        Optional<ParticipationPhoto> current = participationPhotoRepository.findById(id);
+        String currentKey = current.map(ParticipationPhoto::getStorageKey).orElse(null);
+        if (digest != null && digest.equalsIgnoreCase(currentKey)) {
+            return;
+        }
+
+        StoredPhoto stored;
+        try (InputStream content = photo.getInputStream(); SpooledPhoto spooled = photoStore.spool(content)) {
+            if (spooled.key().equals(currentKey)) {
+                return;
+            }
+            photoContentService.acquire(spooled.key(), spooled.contentLength());
+            stored = photoStore.save(spooled);
         } catch (IOException e) {
             throw new PhotoException("Impossible d'ajouter une photo au participant avec l'id:  " + id);
         }
+        if (currentKey != null) {
+            photoContentService.release(currentKey);
+        }
+
+        ParticipationPhoto entity = current.orElseGet(() -> ParticipationPhoto.builder().participation(participation).build());
+        entity.setStorageKey(stored.key());
+        entity.setContentLength(stored.contentLength());
+        entity.setPictureName(photo.getOriginalFilename());
+        entity.setPictureType(photo.getContentType());
+        entity.setUploadedAt(LocalDateTime.now());
+        participationPhotoRepository.save(entity);
+        eventPublisher.publishEvent(new PhotoStoredEvent(stored.key()));
+    }
+
+    /**
+     * Retrieves the photo metadata of a participation, without its bytes.
+     *
+     * @param id The ID of the participation.
+     * @return The photo of the participation.
+     * @throws EntityNotFoundException If the participation has no photo.
+     */
+    @Override
+    public ParticipationPhoto findPhoto(Long id) {
+        return participationPhotoRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("Photo de la participation avec l'id: " + id + " introuvable"));
+    }
+
+    /**
+     * Opens the bytes of a photo from the photo store. Depending on the store, the returned resource streams
+     * the bytes on demand instead of holding them in memory.
+     *
+     * @param photo The photo to load.
+     * @return The resource giving access to the photo bytes.
+     * @throws PhotoException If the photo bytes are missing from the store.
+     */
+    @Override
+    public Resource loadPhoto(ParticipationPhoto photo) {
+        return photoStore.load(photo.getStorageKey());
+    }
+
+    /**
+     * Counts the participations whose photo has the given content, including the one it was taken from.
+     *
+     * @param photo The photo.
+     * @return The number of participations sharing the photo.
+     */
+    @Override
+    public long countPhotoUsages(ParticipationPhoto photo) {
+        return participationPhotoRepository.countByStorageKey(photo.getStorageKey());
+    }
+
+    /**
+     * Finds the photos used by several participations, which usually means the same picture was sent for different households.
+     *
+     * @return The ids of the participations sharing a photo, by SHA-256 digest of the photo.
+     */
+    @Override
+    public Map<String, List<Long>> findSharedPhotos() {
+        Map<String, List<Long>> shared = new LinkedHashMap<>();
+        for (PhotoUsage usage : participationPhotoRepository.findSharedPhotos()) {
+            shared.computeIfAbsent(usage.storageKey(), key -> new ArrayList<>()).add(usage.participationId());
+        }
+        return shared;
+    }
+
+    /**
+     * Retrieves a thumbnail of the photo of a participation, generating it if the background pipeline has not done it yet.
+     *
+     * @param photo The photo of the participation.
+     * @param size  The size of the thumbnail.
+     * @return The thumbnail metadata.
+     * @throws PhotoException If the photo cannot be decoded.
+     */
+    @Override
+    public PhotoThumbnail findThumbnail(ParticipationPhoto photo, ThumbnailSize size) {
+        return thumbnailService.findOrGenerate(photo.getStorageKey(), size);
+    }
+
+    /**
+     * Opens the bytes of a thumbnail from the photo store.
+     *
+     * @param thumbnail The thumbnail to load.
+     * @return The resource giving access to the thumbnail bytes.
+     * @throws PhotoException If the thumbnail bytes are missing from the store.
+     */
+    @Override
+    public Resource loadThumbnail(PhotoThumbnail thumbnail) {
+        return photoStore.load(thumbnail.getStorageKey());
     }
 
     /**
@@ -164,81 +482,259 @@ public class ParticipationServiceImpl implements ParticipationService {
      *
      * @param satisfactionForm The satisfaction form containing the participation ID, satisfaction level, and optional satisfaction comment.
      */
+    @Transactional
     @Override
     public void addSatisfaction(SatisfactionForm satisfactionForm) {
         Participation participation = findById(satisfactionForm.id());
+        ParticipationStatKey previous = StatBuckets.keyOf(participation);
         participation.setSatisfaction(satisfactionForm.satisfaction());
         if (satisfactionForm.satisfactionComment() != null) {
             participation.setSatisfactionComment(satisfactionForm.satisfactionComment());
         }
         participationRepository.save(participation);
+        ParticipationStatKey current = StatBuckets.keyOf(participation);
+        if (!previous.equals(current)) {
+            Map<ParticipationStatKey, Long> deltas = new TreeMap<>(StatBuckets.KEY_ORDER);
+            deltas.put(previous, -1L);
+            deltas.put(current, 1L);
+            deltas.forEach(this::incrementStat);
+        }
+        eventPublisher.publishEvent(new ParticipationChangedEvent(participation.getId()));
     }
 
     //TODO: fin des tests
 
     /**
-     * Updates the status and status update date of a participation to VALIDATED.
+     * Updates the status and status update date of a pending participation to VALIDATED.
+     * The participation is not loaded: a single conditional UPDATE applies the change.
      *
-     * @param id The ID of the participation to validate.
+     * @param id      The ID of the participation to validate.
+     * @param version The version of the participation the change is based on, or null to apply it whatever the version.
+     * @throws EntityNotFoundException If the participation does not exist.
+     * @throws StatusConflictException If the current status does not allow the change or the version is outdated.
      */
     @Transactional
     @Override
-    public void validate(Long id) {
-        Participation participation = findById(id);
-        participation.setStatus(Status.VALIDATED);
-        participation.setStatusUpdateDate(LocalDateTime.now());
-        participationRepository.save(participation);
+    public void validate(Long id, Long version) {
+        changeStatus(id, version, Status.VALIDATED);
     }
 
     /**
-     * Denies a participation by setting its status to DENIED and updating the status update date.
+     * Denies a pending or validated participation by setting its status to DENIED and updating the status update date.
+     * The participation is not loaded: a single conditional UPDATE applies the change.
      *
-     * @param id The ID of the participation to deny.
+     * @param id      The ID of the participation to deny.
+     * @param version The version of the participation the change is based on, or null to apply it whatever the version.
+     * @throws EntityNotFoundException If the participation does not exist.
+     * @throws StatusConflictException If the current status does not allow the change or the version is outdated.
      */
     @Transactional
     @Override
-    public void deny(Long id) {
-        Participation participation = findById(id);
-        participation.setStatus(Status.DENIED);
-        participation.setStatusUpdateDate(LocalDateTime.now());
-        participationRepository.save(participation);
+    public void deny(Long id, Long version) {
+        changeStatus(id, version, Status.DENIED);
     }
 
     /**
-     * Ships a participation by updating its status to SHIPPED and setting the status update date to the current date and time.
+     * Ships a validated participation by updating its status to SHIPPED and setting the status update date to the current date and time.
+     * The participation is not loaded: a single conditional UPDATE applies the change.
      *
-     * @param id The ID of the participation to ship.
+     * @param id       The ID of the participation to ship.
+     * @param version  The version of the participation the change is based on, or null to apply it whatever the version.
+     * @param operator The login of the user shipping the participation.
+     * @throws EntityNotFoundException If the participation does not exist.
+     * @throws StatusConflictException If another operator holds an unexpired shipment claim on the participation,
+     *                                 or if the current status does not allow the change or the version is outdated.
      */
     @Transactional
     @Override
-    public void ship(Long id) {
-        Participation participation = findById(id);
-        participation.setStatus(Status.SHIPPED);
-        participation.setStatusUpdateDate(LocalDateTime.now());
-        participationRepository.save(participation);
+    public void ship(Long id, Long version, String operator) {
+        List<ShipmentClaim> held = shipmentClaimRepository.findActiveHeldByOthers(List.of(id), operator, LocalDateTime.now());
+        if (!held.isEmpty()) {
+            throw new StatusConflictException(claimedReason(held.get(0)));
+        }
+        changeStatus(id, version, Status.SHIPPED);
+    }
+
+    /**
+     * Moves many participations to a status with one set-based UPDATE statement per chunk of participations, each chunk
+     * in its own transaction along with its statistics. A participation whose current status does not allow the change,
+     * for instance a pending participation to ship, is left untouched and reported.
+     *
+     * @param status The new status: VALIDATED, DENIED or SHIPPED.
+     * @param ids    The IDs of the participations, or null to change the participations matching the filter.
+     * @param filter The criteria of the participations to change when no ID is given.
+     * @return The number of participations changed and the participations that were not.
+     * @throws IllegalArgumentException If the status cannot be set in bulk, if neither IDs nor criteria are given,
+     *                                  or if more than the maximum number of participations are concerned.
+     */
+    @Override
+    public BulkTransitionDTO changeStatuses(Status status, List<Long> ids, ParticipationFilter filter) {
+        return changeStatuses(status, ids, filter, null);
+    }
+
+    /**
+     * Ships many participations like {@link #changeStatuses}, except the participations another operator holds
+     * an unexpired shipment claim on, which are left untouched and reported.
+     *
+     * @param ids      The IDs of the participations, or null to ship the participations matching the filter.
+     * @param filter   The criteria of the participations to ship when no ID is given.
+     * @param operator The login of the user shipping the participations.
+     * @return The number of participations shipped and the participations that were not.
+     * @throws IllegalArgumentException If neither IDs nor criteria are given, or if more than the maximum number of participations are concerned.
+     */
+    @Override
+    public BulkTransitionDTO shipAll(List<Long> ids, ParticipationFilter filter, String operator) {
+        return changeStatuses(Status.SHIPPED, ids, filter, operator);
+    }
+
+    /**
+     * @param operator The login of the user changing the statuses, whose shipment claims are the only ones not to hold
+     *                 the participations back, or null to ignore the claims.
+     */
+    private BulkTransitionDTO changeStatuses(Status status, List<Long> ids, ParticipationFilter filter, String operator) {
+        Set<Status> sources = status.sources();
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("Le statut " + status + " ne peut pas être attribué en masse");
+        }
+        List<Long> targets;
+        if (ids != null) {
+            targets = ids.stream().filter(Objects::nonNull).distinct().toList();
+        } else if (filter != null && !filter.isEmpty()) {
+            targets = participationRepository.findIds(filter, MAX_BULK_SIZE + 1);
+        } else {
+            throw new IllegalArgumentException("Des identifiants ou au moins un critère sont requis");
+        }
+        if (targets.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException("Au plus " + MAX_BULK_SIZE + " participations peuvent être modifiées à la fois");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int updated = 0;
+        List<BulkRejectionDTO> rejected = new ArrayList<>();
+        for (int start = 0; start < targets.size(); start += BULK_CHUNK_SIZE) {
+            List<Long> chunk = targets.subList(start, Math.min(start + BULK_CHUNK_SIZE, targets.size()));
+            updated += transactionOperations.execute(transaction -> changeChunkStatuses(status, sources, unclaimed(chunk, operator, now, rejected), now, rejected));
+        }
+        return new BulkTransitionDTO(status, updated, rejected);
+    }
+
+    /**
+     * Leaves out of a chunk the participations another operator holds an unexpired shipment claim on, and reports them.
+     */
+    private List<Long> unclaimed(List<Long> chunk, String operator, LocalDateTime now, List<BulkRejectionDTO> rejected) {
+        if (operator == null) {
+            return chunk;
+        }
+        List<ShipmentClaim> held = shipmentClaimRepository.findActiveHeldByOthers(chunk, operator, now);
+        if (held.isEmpty()) {
+            return chunk;
+        }
+        Set<Long> claimed = new HashSet<>();
+        for (ShipmentClaim claim : held) {
+            claimed.add(claim.getParticipationId());
+            rejected.add(new BulkRejectionDTO(claim.getParticipationId(), null, claimedReason(claim)));
+        }
+        return chunk.stream().filter(id -> !claimed.contains(id)).toList();
+    }
+
+    private static String claimedReason(ShipmentClaim claim) {
+        return "La participation est réservée par " + claim.getOperator() + " jusqu'à " + claim.getExpiresAt();
+    }
+
+    private int changeChunkStatuses(Status status, Set<Status> sources, List<Long> chunk, LocalDateTime now, List<BulkRejectionDTO> rejected) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        List<StatusTransition> transitions = participationRepository.updateStatus(chunk, sources, status, null, now);
+        countTransitions(transitions, status);
+
+        Set<Long> changed = new HashSet<>();
+        for (StatusTransition transition : transitions) {
+            changed.add(transition.id());
+        }
+        List<Long> unchanged = chunk.stream().filter(id -> !changed.contains(id)).toList();
+        if (!unchanged.isEmpty()) {
+            Map<Long, ParticipationStatus> current = new HashMap<>();
+            for (ParticipationStatus participation : participationRepository.findStatusesByIdIn(unchanged)) {
+                current.put(participation.id(), participation);
+            }
+            for (Long id : unchanged) {
+                ParticipationStatus participation = current.get(id);
+                rejected.add(participation == null
+                        ? new BulkRejectionDTO(id, null, "Participation introuvable")
+                        : new BulkRejectionDTO(id, participation.status(), conflictReason(participation, status, null)));
+            }
+        }
+
+        if (!transitions.isEmpty()) {
+            eventPublisher.publishEvent(new ParticipationChangedEvent(null));
+        }
+        return transitions.size();
+    }
+
+    private void changeStatus(Long id, Long version, Status status) {
+        List<StatusTransition> transitions = participationRepository.updateStatus(List.of(id), status.sources(), status, version, LocalDateTime.now());
+        if (transitions.isEmpty()) {
+            ParticipationStatus current = participationRepository.findStatusesByIdIn(List.of(id)).stream()
+                    .findFirst()
+                    .orElseThrow(() -> new EntityNotFoundException("Participation avec l'id: " + id + " introuvable"));
+            throw new StatusConflictException(conflictReason(current, status, version));
+        }
+        countTransitions(transitions, status);
+        eventPublisher.publishEvent(new ParticipationChangedEvent(id));
+    }
+
+    /**
+     * @return why a participation was not moved to the status, its current status and version being known
+     */
+    private static String conflictReason(ParticipationStatus current, Status status, Long version) {
+        if (!current.status().canMoveTo(status)) {
+            return "Une participation au statut " + current.status() + " ne peut pas passer au statut " + status;
+        }
+        if (version != null && version != current.version()) {
+            return "La participation a été modifiée entretemps (version " + version + " attendue, version " + current.version() + " actuelle)";
+        }
+        return "La participation a été modifiée entretemps, réessayez";
     }
 
     /**
-     * Retrieves the participation counts for each day of a week starting from the given first day.
+     * Moves the participations whose status has been changed from the bucket of their previous status to the bucket
+     * of their new one, with one increment per bucket, in the order of the buckets.
+     */
+    private void countTransitions(List<StatusTransition> transitions, Status status) {
+        Map<ParticipationStatKey, Long> deltas = new TreeMap<>(StatBuckets.KEY_ORDER);
+        for (StatusTransition transition : transitions) {
+            deltas.merge(StatBuckets.keyOf(transition, transition.previousStatus()), -1L, Long::sum);
+            deltas.merge(StatBuckets.keyOf(transition, status), 1L, Long::sum);
+        }
+        deltas.forEach((key, delta) -> {
+            if (delta != 0) {
+                incrementStat(key, delta);
+            }
+        });
+    }
+
+    /**
+     * Retrieves the participation counts for each day of a week starting from the given first day and going backwards,
+     * in a single query.
      *
      * @param firstDay The first day of the week.
      * @return An array of Long values representing the participation count for each day of the week. The first element of the
-     * array represents the participation count for the first day, the second element represents the count for the second day,
+     * array represents the participation count for the first day, the second element represents the count for the day before,
      * and so on.
      */
     @Override
     public Long[] getWeek(LocalDate firstDay) {
+        Map<LocalDate, Long> days = countTimeSeries(firstDay.minusDays(6), firstDay, Granularity.DAY, null, null, null);
         Long[] week = new Long[7];
         for (int i = 0; i < 7; i++) {
-            LocalDate date = firstDay.minusDays(i);
-            Long count = participationRepository.countParticipationsByParticipationDate(date);
-            week[i] = count;
+            week[i] = days.get(firstDay.minusDays(i));
         }
         return week;
     }
 
     /**
-     * Retrieves the count of participations for each day of the current week.
+     * Retrieves the count of participations for each day of the current week, in a single query.
      *
      * @return A map where the key is the name of the day (e.g. MONDAY) and the value is the count of participations for that day.
      */
@@ -246,54 +742,110 @@ public class ParticipationServiceImpl implements ParticipationService {
     public Map<String, Long> getWeekWithDays() {
         LocalDate start = LocalDate.now().with(java.time.temporal.TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
         Map<String, Long> map = new LinkedHashMap<>();
-        for (int i = 0; i <= 6; i++) {
-            LocalDate currentDate = start.plusDays(i);
-            Long count = participationRepository.countParticipationsByParticipationDate(currentDate);
-            map.put(currentDate.getDayOfWeek().toString(), count);
-        }
+        countTimeSeries(start, start.plusDays(6), Granularity.DAY, null, null, null).forEach((day, count) -> map.put(day.getDayOfWeek().toString(), count));
         return map;
     }
 
+    /**
+     * Counts the participations of each period of a range from the daily rows of the statistics table,
+     * in a single grouped query whatever the length of the range.
+     *
+     * @param from        The first day of the range.
+     * @param to          The last day of the range, included.
+     * @param granularity The length of the periods. The first and last periods only count the days within the range.
+     * @param status      The status of the counted participations, or null for all of them.
+     * @param province    The province of the counted participations, or null for all of them.
+     * @param productType The product type of the counted participations, or null for all of them.
+     * @return The count of participations by first day of period in chronological order, periods without participation included with 0.
+     * @throws IllegalArgumentException If the range is empty or has too many periods.
+     */
+    @Override
+    public Map<LocalDate, Long> countTimeSeries(LocalDate from, LocalDate to, Granularity granularity, Status status, Province province, String productType) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("La date de début doit précéder la date de fin");
+        }
+        Map<LocalDate, Long> periods = new LinkedHashMap<>();
+        for (LocalDate period = granularity.periodStart(from); !period.isAfter(to); period = granularity.nextPeriod(period)) {
+            if (periods.size() == MAX_TIME_SERIES_PERIODS) {
+                throw new IllegalArgumentException("La période demandée contient plus de " + MAX_TIME_SERIES_PERIODS + " points");
+            }
+            periods.put(period, 0L);
+        }
+        for (DayCount day : participationStatRepository.countByDayBetween(from, to, status, province == null ? null : province.name(), productType)) {
+            periods.merge(granularity.periodStart(day.day()), day.count(), Long::sum);
+        }
+        return periods;
+    }
+
+    /**
+     * Computes the percentiles of the lead time of each status transition from the status history, in the database.
+     * Participations created before the history was introduced have no logged creation, their validation or denial is ignored.
+     *
+     * @param from The first day of the transitions.
+     * @param to   The last day of the transitions, included.
+     * @return The p50, p90 and p99 lead times in seconds of each transition that happened in the range.
+     * @throws IllegalArgumentException If the range is empty.
+     */
+    @Override
+    public List<LeadTimeDTO> findLeadTimes(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("La date de début doit précéder la date de fin");
+        }
+        return participationStatusEventRepository.findLeadTimes(from.atStartOfDay(), to.plusDays(1).atStartOfDay())
+                .stream()
+                .map(LeadTimeDTO::fromStage)
+                .toList();
+    }
 
     /**
-     * Counts the total number of participations.
+     * Counts the total number of participations from the statistics table.
      *
      * @return The count of participations as a Long.
      */
     @Override
     public Long countParticipation() {
-        return participationRepository.countAllByIdIsNotNull();
+        return participationStatRepository.countParticipations();
     }
 
     /**
-     * Counts the number of participations for the last 5 months.
+     * Counts the number of participations for the last 5 months, from the monthly time series.
      *
      * @return An array of Long values representing the count of participations for each of the last 5 months.
      */
     @Override
     public Long[] countParticipationLast5Months() {
+        YearMonth currentMonth = YearMonth.now();
+        Map<LocalDate, Long> months = countTimeSeries(
+                currentMonth.minusMonths(4).atDay(1),
+                currentMonth.atEndOfMonth(),
+                Granularity.MONTH,
+                null,
+                null,
+                null
+        );
         Long[] count = new Long[5];
         for (int i = 0; i < count.length; i++) {
-            LocalDate startOfMonth = LocalDate.now().withDayOfMonth(1).minusMonths(i);
-            LocalDate endOfMonth = startOfMonth.plusMonths(1).minusDays(1);
-            count[i] = participationRepository.countAllByParticipationDateBetween(startOfMonth, endOfMonth);
+            count[i] = months.get(currentMonth.minusMonths(i).atDay(1));
         }
         return count;
     }
 
     /**
-     * Counts the number of participations by province.
+     * Counts the number of participations by province, from the statistics table where the province
+     * of each participation is derived from its post code when it is written.
      *
-     * @return A map that contains the province names as keys and the corresponding count of participations as values.
+     * @return A map that contains the province names as keys, for every Belgian province and Brussels, and the corresponding count of participations as values.
      */
     @Override
     public Map<String, Long> countByProvince() {
+        Map<String, Long> counts = new HashMap<>();
+        for (KeyCount province : participationStatRepository.countByProvince()) {
+            counts.put(province.key(), province.count());
+        }
         Map<String, Long> map = new LinkedHashMap<>();
-        map.put("Brabant Wallon", participationRepository.countParticipationByAddress_PostCodeBetween(1300, 1499));
-        map.put("Liège", participationRepository.countParticipationByAddress_PostCodeBetween(4000, 4999));
-        map.put("Namur", participationRepository.countParticipationByAddress_PostCodeBetween(5000, 5680));
-        map.put("Hainaut", participationRepository.countParticipationByAddress_PostCodeBetween(6000, 6599) + participationRepository.countParticipationByAddress_PostCodeBetween(7000, 7999));
-        map.put("Luxembourg", participationRepository.countParticipationByAddress_PostCodeBetween(6600, 6999));
+        for (Province province : Province.values()) {
+            map.put(province.getLabel(), counts.getOrDefault(province.name(), 0L));
+        }
         return map;
     }
 
@@ -305,12 +857,22 @@ public class ParticipationServiceImpl implements ParticipationService {
      */
     @Override
     public Map<String, Long> countByProductType() {
+        return productTypeCounts(participationStatRepository.countByProductType());
+    }
+
+    private Map<String, Long> productTypeCounts(List<KeyCount> productTypes) {
         Map<String, Long> map = new LinkedHashMap<>();
-        map.put("insecticide", participationRepository.countParticipationByProductType("Insecticide"));
-        map.put("herbicide", participationRepository.countParticipationByProductType("Herbicide"));
-        map.put("fongicide", participationRepository.countParticipationByProductType("Fongicide"));
-        List<Participation> others = participationRepository.findAllByProductTypeNotIn(List.of("Insecticide", "Herbicide", "Fongicide"));
-        map.put("autre", (long) others.size());
+        for (String productType : KNOWN_PRODUCT_TYPES) {
+            map.put(productType.toLowerCase(), 0L);
+        }
+        map.put("autre", 0L);
+        for (KeyCount productType : productTypes) {
+            if (KNOWN_PRODUCT_TYPES.contains(productType.key())) {
+                map.put(productType.key().toLowerCase(), productType.count());
+            } else if (productType.key() != null && !productType.key().isEmpty()) {
+                map.merge("autre", productType.count(), Long::sum);
+            }
+        }
         return map;
     }
 
@@ -321,10 +883,13 @@ public class ParticipationServiceImpl implements ParticipationService {
      */
     @Override
     public List<String> otherProductType() {
-        List<Participation> others = participationRepository.findAllByProductTypeNotIn(List.of("Insecticide", "Herbicide", "Fongicide"));
-        return others.stream()
-                .map(Participation::getProductType)
-                .distinct()
+        return otherProductTypes(participationStatRepository.countByProductType());
+    }
+
+    private List<String> otherProductTypes(List<KeyCount> productTypes) {
+        return productTypes.stream()
+                .map(KeyCount::key)
+                .filter(productType -> productType != null && !productType.isEmpty() && !KNOWN_PRODUCT_TYPES.contains(productType))
                 .toList();
     }
 
@@ -335,58 +900,90 @@ public class ParticipationServiceImpl implements ParticipationService {
      */
     @Override
     public Long[] countNotes() {
+        return noteCounts(participationStatRepository.countBySatisfaction());
+    }
+
+    private Long[] noteCounts(List<NumberCount> satisfactions) {
         Long[] count = new Long[3];
-        for (int i = 0; i < count.length; i++) {
-            count[i] = participationRepository.countParticipationBySatisfaction(i + 1);
+        Arrays.fill(count, 0L);
+        for (NumberCount satisfaction : satisfactions) {
+            if (satisfaction.value() >= 1 && satisfaction.value() <= count.length) {
+                count[satisfaction.value() - 1] = satisfaction.count();
+            }
         }
         return count;
     }
 
     /**
-     * Counts the number of satisfaction comments for each type of comment.
+     * Counts the number of satisfaction comments for each type of comment, ignoring case, from the statistics table.
      *
      * @return a {@code Map} where the keys are the satisfaction comment types and the values are the counts of each type of comment.
      */
     @Override
     public Map<String, Long> countSatisfactionComments() {
-        Map<String, Long> comments = new LinkedHashMap<>();
-        comments.put("C'était trop long", participationRepository.countParticipationBySatisfactionCommentIgnoreCase("C'était trop long"));
-        comments.put("C'était trop court", participationRepository.countParticipationBySatisfactionCommentIgnoreCase("C'était trop court"));
-        comments.put("L'appareil ne fonctionnait pas", participationRepository.countParticipationBySatisfactionCommentIgnoreCase("L'appareil ne fonctionnait pas"));
-        comments.put("Informations pas claires", participationRepository.countParticipationBySatisfactionCommentIgnoreCase("Informations pas claires"));
-        return comments;
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (String known : StatBuckets.KNOWN_SATISFACTION_COMMENTS) {
+            map.put(known, 0L);
+        }
+        for (KeyCount category : participationStatRepository.countByCommentCategory()) {
+            if (map.containsKey(category.key())) {
+                map.put(category.key(), category.count());
+            }
+        }
+        return map;
     }
 
     /**
-     * Retrieves all satisfaction comments except for the predefined ones.
+     * Retrieves all satisfaction comments except for the predefined ones, each one as many times as it was given.
+     * Free comments cannot be counted in the statistics table, so they are still read from the participations.
      *
      * @return List of strings representing all other satisfaction comments.
      */
     @Override
     public List<String> allOtherSatisfactionComments() {
-        return participationRepository
-                .findAllBySatisfactionCommentNotIn(List.of("C'était trop long", "C'était trop court", "L'appareil ne fonctionnait pas", "Informations pas claires"))
-                .stream()
-                .map(Participation::getSatisfactionComment)
-                .toList();
+        return participationRepository.findSatisfactionCommentsNotIn(StatBuckets.KNOWN_SATISFACTION_COMMENTS);
     }
 
     /**
-     * Builds a StatsDTO object with various statistics.
+     * Builds a StatsDTO object with various statistics. The counts are read from the statistics table, whose size
+     * depends on the number of distinct buckets rather than on the number of participations, and each query is shared
+     * by the statistics that derive from it. Only the free satisfaction comments are read from the participations.
+     * The satisfaction is mandatory, so the total number of participations is the sum of the satisfaction groups.
+     * The queries run concurrently, a statistic whose query fails or is too slow is left null and the result is then not cached.
+     * The result is cached until a participation changes, concurrent misses sharing a single computation.
      *
      * @return The constructed StatsDTO object.
+     * @throws be.technobel.corder.pl.config.exceptions.StatsUnavailableException If every query failed.
      */
     @Override
     public StatsDTO statsDTOBuilder() {
+        return statsCache.stats(this::buildStats);
+    }
+
+    private StatsDTO buildStats() {
+        StatsSections.Batch batch = statsSections.batch("stats");
+        Section<List<NumberCount>> satisfactions = batch.submit("satisfactions", participationStatRepository::countBySatisfaction);
+        Section<List<KeyCount>> productTypes = batch.submit("productTypes", participationStatRepository::countByProductType);
+        Section<Long[]> months = batch.submit("last5Months", this::countParticipationLast5Months);
+        Section<Map<String, Long>> provinces = batch.submit("provinces", this::countByProvince);
+        Section<Map<String, Long>> comments = batch.submit("satisfactionComments", this::countSatisfactionComments);
+        Section<List<String>> otherComments = batch.submit("otherSatisfactionComments", this::allOtherSatisfactionComments);
+        batch.await();
+        if (!batch.complete()) {
+            statsCache.invalidateStats();
+        }
+
+        List<NumberCount> satisfactionCounts = satisfactions.value();
+        List<KeyCount> productTypeCounts = productTypes.value();
         return StatsDTO.builder()
-                .countParticipants(countParticipation())
-                .countParticipantsEachLast5Months(countParticipationLast5Months())
-                .countByProvince(countByProvince())
-                .productsUsed(countByProductType())
-                .otherProductsUsed(otherProductType())
-                .countNotes(countNotes())
-                .countSatisfactionComments(countSatisfactionComments())
-                .allOthersSatisfactionComment(allOtherSatisfactionComments())
+                .countParticipants(satisfactionCounts == null ? null : satisfactionCounts.stream().mapToLong(NumberCount::count).sum())
+                .countParticipantsEachLast5Months(months.value())
+                .countByProvince(provinces.value())
+                .productsUsed(productTypeCounts == null ? null : productTypeCounts(productTypeCounts))
+                .otherProductsUsed(productTypeCounts == null ? null : otherProductTypes(productTypeCounts))
+                .countNotes(satisfactionCounts == null ? null : noteCounts(satisfactionCounts))
+                .countSatisfactionComments(comments.value())
+                .allOthersSatisfactionComment(otherComments.value())
                 .build();
     }
 
@@ -397,9 +994,7 @@ public class ParticipationServiceImpl implements ParticipationService {
      */
     @Override
     public Long[] last3Pending() {
-        return participationRepository.findTop3ByStatusOrderByStatusUpdateDateDesc(Status.PENDING)
-                .stream()
-                .map(Participation::getId)
+        return participationRepository.findIdsByStatusOrderByStatusUpdateDateDesc(Status.PENDING, PageRequest.of(0, 3))
                 .toArray(Long[]::new);
     }
 
@@ -410,24 +1005,39 @@ public class ParticipationServiceImpl implements ParticipationService {
      */
     @Override
     public Long[] last3Validated() {
-        return participationRepository.findTop3ByStatusOrderByStatusUpdateDateDesc(Status.VALIDATED)
-                .stream()
-                .map(Participation::getId)
+        return participationRepository.findIdsByStatusOrderByStatusUpdateDateDesc(Status.VALIDATED, PageRequest.of(0, 3))
                 .toArray(Long[]::new);
     }
 
     /**
      * Builds a DashboardDTO object containing various statistics and data for a dashboard.
+     * The queries run concurrently, a value whose query fails or is too slow is left null and the result is then not cached.
+     * The result is cached until a participation changes, concurrent misses sharing a single computation.
      *
      * @return The DashboardDTO object with the built data.
+     * @throws be.technobel.corder.pl.config.exceptions.StatsUnavailableException If every query failed.
      */
     @Override
     public DashboardDTO dashboardDTOBuilder() {
+        return statsCache.dashboard(this::buildDashboard);
+    }
+
+    private DashboardDTO buildDashboard() {
+        StatsSections.Batch batch = statsSections.batch("dashboard");
+        Section<Long> participants = batch.submit("countParticipants", this::countParticipation);
+        Section<Map<String, Long>> days = batch.submit("days", this::getWeekWithDays);
+        Section<Long[]> pending = batch.submit("lastThreePending", this::last3Pending);
+        Section<Long[]> validated = batch.submit("lastThreeValidated", this::last3Validated);
+        batch.await();
+        if (!batch.complete()) {
+            statsCache.invalidateDashboard();
+        }
+
         return DashboardDTO.builder()
-                .countParticipants(countParticipation())
-                .days(getWeekWithDays())
-                .lastThreePending(last3Pending())
-                .lastThreeValidated(last3Validated())
+                .countParticipants(participants.value())
+                .days(days.value())
+                .lastThreePending(pending.value())
+                .lastThreeValidated(validated.value())
                 .build();
     }
 
@@ -0,0 +1,94 @@
+package be.technobel.corder.bl.impl;
+
+import be.technobel.corder.bl.services.PhotoContentService;
+import be.technobel.corder.bl.storage.PhotoStore;
+import be.technobel.corder.dl.models.PhotoThumbnail;
+import be.technobel.corder.dl.repositories.PhotoContentRepository;
+import be.technobel.corder.dl.repositories.PhotoThumbnailRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Counts the participations referencing each photo content, and purges the contents nobody references anymore.
+ */
+@Service
+public class PhotoContentServiceImpl implements PhotoContentService {
+
+    private final PhotoContentRepository photoContentRepository;
+    private final PhotoThumbnailRepository photoThumbnailRepository;
+    private final PhotoStore photoStore;
+    private final TransactionOperations transactionOperations;
+    private final Duration gracePeriod;
+    private final int batchSize;
+
+    public PhotoContentServiceImpl(
+            PhotoContentRepository photoContentRepository,
+            PhotoThumbnailRepository photoThumbnailRepository,
+            PhotoStore photoStore,
+            TransactionOperations transactionOperations,
+            @Value("${api.photo-store.purge.grace-period:24h}") Duration gracePeriod,
+            @Value("${api.photo-store.purge.batch-size:100}") int batchSize
+    ) {
+        this.photoContentRepository = photoContentRepository;
+        this.photoThumbnailRepository = photoThumbnailRepository;
+        this.photoStore = photoStore;
+        this.transactionOperations = transactionOperations;
+        this.gracePeriod = gracePeriod;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Adds a reference to a photo content. Must be called before the bytes are saved in the photo store:
+     * the content row stays locked until the end of the transaction, which keeps a running purge from deleting the bytes.
+     *
+     * @param key           the content key
+     * @param contentLength the size of the content
+     */
+    @Transactional
+    @Override
+    public void acquire(String key, long contentLength) {
+        photoContentRepository.acquire(key, contentLength);
+    }
+
+    /**
+     * Removes a reference to a photo content. The bytes are kept until the purge, after the grace period.
+     *
+     * @param key the content key
+     */
+    @Transactional
+    @Override
+    public void release(String key) {
+        photoContentRepository.release(key, LocalDateTime.now());
+    }
+
+    /**
+     * Deletes from the photo store the contents unreferenced for longer than the grace period. The thumbnails of a purged
+     * content are deleted and their own contents released, their bytes are purged once no other thumbnail or photo shares them.
+     *
+     * @return the number of purged contents
+     */
+    @Scheduled(fixedDelayString = "${api.photo-store.purge.interval:3600000}")
+    @Override
+    public int purgeReleased() {
+        Integer purged = transactionOperations.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<String> keys = photoContentRepository.deleteReleasedBefore(now.minus(gracePeriod), batchSize);
+            for (String key : keys) {
+                for (PhotoThumbnail thumbnail : photoThumbnailRepository.findBySourceKey(key)) {
+                    photoThumbnailRepository.delete(thumbnail);
+                    photoContentRepository.release(thumbnail.getStorageKey(), now);
+                }
+                photoStore.delete(key);
+            }
+            return keys.size();
+        });
+        return purged == null ? 0 : purged;
+    }
+}
@@ -0,0 +1,130 @@
+package be.technobel.corder.bl.impl;
+
+import be.technobel.corder.bl.services.ParticipationService;
+import be.technobel.corder.bl.services.ShipmentService;
+import be.technobel.corder.dl.models.enums.Status;
+import be.technobel.corder.dl.repositories.ParticipationRepository;
+import be.technobel.corder.dl.repositories.ShipmentClaimRepository;
+import be.technobel.corder.pl.models.dtos.BulkRejectionDTO;
+import be.technobel.corder.pl.models.dtos.BulkTransitionDTO;
+import be.technobel.corder.pl.models.dtos.ParticipationDTO;
+import be.technobel.corder.pl.models.dtos.ShipmentClaimDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Hands the validated participations out to the logistics operators. Each operator claims the oldest participations
+ * nobody else holds, ships them and completes them, so concurrent operators never work on the same parcel.
+ * A claim that is neither completed nor released expires after the lease, and the participation is handed out again.
+ */
+@Service
+public class ShipmentServiceImpl implements ShipmentService {
+
+    private static final int DEFAULT_CLAIM_SIZE = 10;
+
+    private final ShipmentClaimRepository shipmentClaimRepository;
+    private final ParticipationRepository participationRepository;
+    private final ParticipationService participationService;
+    private final TransactionOperations transactionOperations;
+    private final Duration lease;
+    private final int maxClaimSize;
+
+    public ShipmentServiceImpl(
+            ShipmentClaimRepository shipmentClaimRepository,
+            ParticipationRepository participationRepository,
+            ParticipationService participationService,
+            TransactionOperations transactionOperations,
+            @Value("${api.shipment.lease:15m}") Duration lease,
+            @Value("${api.shipment.max-claim-size:100}") int maxClaimSize
+    ) {
+        this.shipmentClaimRepository = shipmentClaimRepository;
+        this.participationRepository = participationRepository;
+        this.participationService = participationService;
+        this.transactionOperations = transactionOperations;
+        this.lease = lease;
+        this.maxClaimSize = maxClaimSize;
+    }
+
+    /**
+     * Claims the oldest validated participations nobody holds, without waiting for the operators claiming at the same moment.
+     *
+     * @param operator the login of the operator
+     * @param size     the maximum number of participations to claim, or null for the default number
+     * @return the claimed participations and the expiry of their claims, possibly no participation when the backlog is empty
+     * @throws IllegalArgumentException if the size is out of bounds
+     */
+    @Override
+    public ShipmentClaimDTO claim(String operator, Integer size) {
+        int claimSize = size == null ? DEFAULT_CLAIM_SIZE : size;
+        if (claimSize < 1 || claimSize > maxClaimSize) {
+            throw new IllegalArgumentException("Le nombre de participations à réserver doit être compris entre 1 et " + maxClaimSize);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(lease);
+        List<Long> ids = shipmentClaimRepository.claimNext(operator, now, expiresAt, claimSize);
+        List<ParticipationDTO> participations = ids.isEmpty()
+                ? List.of()
+                : participationRepository.findSummariesByIdIn(ids).stream().map(ParticipationDTO::fromSummary).toList();
+        return new ShipmentClaimDTO(expiresAt, participations);
+    }
+
+    /**
+     * Ships the given participations the operator holds an unexpired claim on, and drops their claims.
+     * Claims and statuses are changed in the same transaction, so a claim is only dropped with its participation shipped.
+     *
+     * @param operator the login of the operator
+     * @param ids      the ids of the shipped participations
+     * @return the number of participations shipped, and the ones that were not, with the reason
+     */
+    @Override
+    public BulkTransitionDTO complete(String operator, List<Long> ids) {
+        List<Long> targets = ids.stream().filter(Objects::nonNull).distinct().toList();
+        return transactionOperations.execute(status -> {
+            List<Long> claimed = targets.isEmpty() ? List.of() : shipmentClaimRepository.deleteActive(targets, operator, LocalDateTime.now());
+            BulkTransitionDTO shipped = participationService.changeStatuses(Status.SHIPPED, claimed, null);
+
+            Set<Long> held = new HashSet<>(claimed);
+            List<BulkRejectionDTO> rejected = new ArrayList<>(shipped.rejected());
+            for (Long id : targets) {
+                if (!held.contains(id)) {
+                    rejected.add(new BulkRejectionDTO(id, null, "Aucune réservation en cours pour cette participation"));
+                }
+            }
+            return new BulkTransitionDTO(Status.SHIPPED, shipped.updated(), rejected);
+        });
+    }
+
+    /**
+     * Gives back the given participations the operator holds an unexpired claim on, so other operators may claim them at once.
+     *
+     * @param operator the login of the operator
+     * @param ids      the ids of the participations
+     * @return the number of released claims
+     */
+    @Override
+    public int release(String operator, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Long> released = transactionOperations.execute(status -> shipmentClaimRepository.deleteActive(ids, operator, LocalDateTime.now()));
+        return released == null ? 0 : released.size();
+    }
+
+    /**
+     * Deletes the expired claims. They no longer hold anything, this only keeps the table small.
+     *
+     * @return the number of deleted claims
+     */
+    @Scheduled(fixedDelayString = "${api.shipment.purge-interval:3600000}")
+    @Override
+    public int purgeExpired() {
+        Integer purged = transactionOperations.execute(status -> shipmentClaimRepository.deleteExpired(LocalDateTime.now()));
+        return purged == null ? 0 : purged;
+    }
+}
@@ -0,0 +1,119 @@
+package be.technobel.corder.bl.impl;
+
+import be.technobel.corder.bl.services.PhotoContentService;
+import be.technobel.corder.bl.services.ThumbnailService;
+import be.technobel.corder.bl.storage.PhotoStore;
+import be.technobel.corder.bl.storage.SpooledPhoto;
+import be.technobel.corder.bl.storage.StoredPhoto;
+import be.technobel.corder.bl.storage.ThumbnailRenderer;
+import be.technobel.corder.dl.models.PhotoThumbnail;
+import be.technobel.corder.dl.models.enums.ThumbnailSize;
+import be.technobel.corder.dl.repositories.PhotoThumbnailRepository;
+import be.technobel.corder.pl.config.exceptions.PhotoException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Generates and retrieves the thumbnails of stored photos.
+ */
+@Service
+public class ThumbnailServiceImpl implements ThumbnailService {
+
+    private final PhotoThumbnailRepository photoThumbnailRepository;
+    private final PhotoStore photoStore;
+    private final PhotoContentService photoContentService;
+    private final TransactionOperations transactionOperations;
+
+    public ThumbnailServiceImpl(PhotoThumbnailRepository photoThumbnailRepository, PhotoStore photoStore, PhotoContentService photoContentService, TransactionOperations transactionOperations) {
+        this.photoThumbnailRepository = photoThumbnailRepository;
+        this.photoStore = photoStore;
+        this.photoContentService = photoContentService;
+        this.transactionOperations = transactionOperations;
+    }
+
+    /**
+     * Retrieves a thumbnail of a photo, generating it on the spot when the background pipeline has not produced it yet.
+     *
+     * @param sourceKey The key of the original photo in the photo store.
+     * @param size      The size of the thumbnail.
+     * @return The thumbnail.
+     * @throws PhotoException If the original photo cannot be decoded.
+     */
+    @Override
+    public PhotoThumbnail findOrGenerate(String sourceKey, ThumbnailSize size) {
+        return photoThumbnailRepository.findBySourceKeyAndThumbnailSize(sourceKey, size)
+                .orElseGet(() -> store(sourceKey, size, render(decode(sourceKey, size.getPixels()), size)));
+    }
+
+    /**
+     * Generates the missing thumbnails of a photo. The original is decoded once for all sizes.
+     *
+     * @param sourceKey The key of the original photo in the photo store.
+     * @throws PhotoException If the original photo cannot be decoded.
+     */
+    @Override
+    public void generateAll(String sourceKey) {
+        List<ThumbnailSize> missing = Arrays.stream(ThumbnailSize.values())
+                .filter(size -> !photoThumbnailRepository.existsBySourceKeyAndThumbnailSize(sourceKey, size))
+                .toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        int maxPixels = missing.stream().mapToInt(ThumbnailSize::getPixels).max().getAsInt();
+        BufferedImage image = decode(sourceKey, maxPixels);
+        for (ThumbnailSize size : missing) {
+            store(sourceKey, size, render(image, size));
+        }
+    }
+
+    private BufferedImage decode(String sourceKey, int maxPixels) {
+        try (InputStream original = photoStore.load(sourceKey).getInputStream()) {
+            return ThumbnailRenderer.read(original, maxPixels);
+        } catch (IOException e) {
+            throw new PhotoException("Impossible de lire la photo " + sourceKey + ": " + e.getMessage());
+        }
+    }
+
+    private byte[] render(BufferedImage image, ThumbnailSize size) {
+        try {
+            return ThumbnailRenderer.render(image, size.getPixels());
+        } catch (IOException e) {
+            throw new PhotoException("Impossible de générer la miniature: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stores a thumbnail and references its content like an original photo: identical thumbnails of different originals
+     * share their bytes, which are only purged once no thumbnail nor photo references them anymore.
+     */
+    private PhotoThumbnail store(String sourceKey, ThumbnailSize size, byte[] content) {
+        try {
+            return transactionOperations.execute(status -> {
+                StoredPhoto stored;
+                try (SpooledPhoto spooled = photoStore.spool(new ByteArrayInputStream(content))) {
+                    photoContentService.acquire(spooled.key(), spooled.contentLength());
+                    stored = photoStore.save(spooled);
+                } catch (IOException e) {
+                    throw new PhotoException("Impossible d'enregistrer la miniature: " + e.getMessage());
+                }
+                return photoThumbnailRepository.saveAndFlush(PhotoThumbnail.builder()
+                        .sourceKey(sourceKey)
+                        .thumbnailSize(size)
+                        .storageKey(stored.key())
+                        .contentLength(stored.contentLength())
+                        .build());
+            });
+        } catch (DataIntegrityViolationException e) {
+            // generated meanwhile by the pipeline or by another request
+            return photoThumbnailRepository.findBySourceKeyAndThumbnailSize(sourceKey, size).orElseThrow(() -> e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package be.technobel.corder.bl.mail;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Circuit breaker guarding the SMTP relay.
+ * After a number of consecutive failures the circuit opens and sends fail fast until the open duration has elapsed.
+ * A single trial is then let through: its success closes the circuit, its failure opens it again.
+ */
+@Component
+public class MailCircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private Instant openedAt;
+
+    @Autowired
+    public MailCircuitBreaker(
+            @Value("${api.mail.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${api.mail.circuit-breaker.open-duration:30s}") Duration openDuration
+    ) {
+        this(failureThreshold, openDuration, Clock.systemUTC());
+    }
+
+    MailCircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    /**
+     * Tells whether a send may be attempted. Moves an expired open circuit to half-open and lets one trial through.
+     *
+     * @return true if the send may be attempted, false if it must fail fast
+     */
+    public synchronized boolean allowRequest() {
+        return switch (state) {
+            case CLOSED -> true;
+            case HALF_OPEN -> false;
+            case OPEN -> {
+                if (openExpired()) {
+                    state = State.HALF_OPEN;
+                    yield true;
+                }
+                yield false;
+            }
+        };
+    }
+
+    /**
+     * Records a successful exchange with the relay, closing the circuit.
+     */
+    public synchronized void recordSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+        openedAt = null;
+    }
+
+    /**
+     * Records a failed exchange with the relay, opening the circuit when the threshold is reached or when the trial failed.
+     */
+    public synchronized void recordFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.instant();
+        }
+    }
+
+    /**
+     * Gives back a trial that never reached the relay, so the next send is let through as the trial instead.
+     * Outside of a trial, nothing changes.
+     */
+    public synchronized void abandonTrial() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+        }
+    }
+
+    /**
+     * @return true while the circuit is open and not yet ready for a trial
+     */
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && !openExpired();
+    }
+
+    /**
+     * Tells, without changing the state, whether a send would currently be let through.
+     *
+     * @return false while the circuit is open and not yet ready for a trial, or while the trial is in flight
+     */
+    public synchronized boolean permitsRequests() {
+        return state == State.CLOSED || (state == State.OPEN && openExpired());
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private boolean openExpired() {
+        return !clock.instant().isBefore(openedAt.plus(openDuration));
+    }
+}
@@ -0,0 +1,84 @@
+package be.technobel.corder.bl.mail;
+
+import be.technobel.corder.bl.services.MailOutboxService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains the mail outbox in the background with a bounded pool of workers, each sending a batch of mails over one connection.
+ * Only as many mails as the pool can take are claimed at each poll, the others stay in the outbox.
+ * Nothing is claimed while the circuit breaker reports the SMTP relay as down.
+ */
+@Component
+public class MailOutboxDispatcher {
+
+    private final MailOutboxService mailOutboxService;
+    private final MailCircuitBreaker circuitBreaker;
+    private final ThreadPoolExecutor workers;
+    private final int capacity;
+    private final int batchSize;
+
+    public MailOutboxDispatcher(
+            MailOutboxService mailOutboxService,
+            MailCircuitBreaker circuitBreaker,
+            @Value("${api.mail.outbox.workers:4}") int workers,
+            @Value("${api.mail.outbox.queue-capacity:100}") int queueCapacity,
+            @Value("${api.mail.outbox.batch-size:20}") int batchSize
+    ) {
+        this.mailOutboxService = mailOutboxService;
+        this.circuitBreaker = circuitBreaker;
+        this.capacity = workers + queueCapacity;
+        this.batchSize = batchSize;
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(
+                workers,
+                workers,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "mail-outbox-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+    }
+
+    /**
+     * Claims the due mails that fit in the pool and hands them to the workers in batches.
+     * Nothing is claimed while the circuit breaker refuses sends, and a single batch carries the trial of a half-open circuit.
+     */
+    @Scheduled(fixedDelayString = "${api.mail.outbox.poll-interval:2000}")
+    public void poll() {
+        if (!circuitBreaker.permitsRequests()) {
+            return;
+        }
+        int freeTasks = capacity - workers.getActiveCount() - workers.getQueue().size();
+        if (circuitBreaker.getState() != MailCircuitBreaker.State.CLOSED) {
+            freeTasks = Math.min(freeTasks, 1);
+        }
+        List<Long> ids = mailOutboxService.claimDue(freeTasks * batchSize);
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            // a batch that does not fit anymore keeps its lease and is claimed again once the lease expires
+            if (workers.getQueue().remainingCapacity() == 0) {
+                break;
+            }
+            List<Long> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            workers.execute(() -> mailOutboxService.dispatch(batch));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
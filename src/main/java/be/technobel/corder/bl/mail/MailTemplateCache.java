@@ -0,0 +1,182 @@
+package be.technobel.corder.bl.mail;
+
+import org.springframework.stereotype.Component;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templateresolver.ITemplateResolver;
+import org.thymeleaf.templateresolver.TemplateResolution;
+import org.thymeleaf.templateresource.ITemplateResource;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Renders mail templates from a cache of pre-rendered fragments.
+ * Each template is processed by Thymeleaf once per set of variable names, with placeholders as values.
+ * When the variables of the template only appear as plain th:text="${name}" attributes and every placeholder shows up
+ * in the output, later renders only substitute the escaped values. Otherwise, for example when a variable drives a th:if
+ * or is written by a th:utext or in a URL, the template keeps being processed by Thymeleaf.
+ * Render times are recorded for each template.
+ */
+@Component
+public class MailTemplateCache {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("%%CORDER:([^%]+)%%");
+    private static final Pattern PLAIN_TEXT = Pattern.compile("th:text\\s*=\\s*([\"'])\\s*\\$\\{\\s*[A-Za-z_][\\w]*\\s*}\\s*\\1");
+
+    /**
+     * Markers of the expressions left once the plain th:text attributes are removed, that the fragments cannot reproduce:
+     * variables, selections, inlined expressions and fragments of other templates.
+     */
+    private static final List<String> DYNAMIC_MARKERS = List.of("${", "*{", "[[", "[(", "~{");
+
+    /**
+     * Marks a template that cannot be pre-rendered.
+     */
+    private static final Optional<PrecompiledTemplate> NOT_PRECOMPILABLE = Optional.empty();
+
+    private final TemplateEngine templateEngine;
+    private final Map<String, Optional<PrecompiledTemplate>> templates = new ConcurrentHashMap<>();
+    private final Map<String, RenderStats> stats = new ConcurrentHashMap<>();
+
+    public MailTemplateCache(TemplateEngine templateEngine) {
+        this.templateEngine = templateEngine;
+    }
+
+    /**
+     * Renders a template with the given variables.
+     *
+     * @param template  the name of the template
+     * @param variables the variables of the template
+     * @return the rendered template
+     */
+    public String render(String template, Map<String, Object> variables) {
+        long start = System.nanoTime();
+        Optional<PrecompiledTemplate> precompiled = templates.computeIfAbsent(
+                cacheKey(template, variables.keySet()),
+                key -> precompile(template, variables.keySet())
+        );
+        String content = precompiled
+                .map(compiled -> compiled.render(variables))
+                .orElseGet(() -> process(template, variables));
+        stats.computeIfAbsent(template, key -> new RenderStats()).record(System.nanoTime() - start, precompiled.isPresent());
+        return content;
+    }
+
+    /**
+     * @return the render metrics of every template rendered so far, by template name
+     */
+    public Map<String, TemplateRenderMetrics> metrics() {
+        Map<String, TemplateRenderMetrics> metrics = new TreeMap<>();
+        stats.forEach((template, stat) -> metrics.put(template, stat.snapshot(template)));
+        return metrics;
+    }
+
+    private Optional<PrecompiledTemplate> precompile(String template, Set<String> names) {
+        String source = source(template);
+        if (source == null) {
+            return NOT_PRECOMPILABLE;
+        }
+        String remaining = PLAIN_TEXT.matcher(source).replaceAll("");
+        if (DYNAMIC_MARKERS.stream().anyMatch(remaining::contains)) {
+            return NOT_PRECOMPILABLE;
+        }
+
+        Map<String, Object> placeholders = new HashMap<>();
+        for (String name : names) {
+            placeholders.put(name, "%%CORDER:" + name + "%%");
+        }
+        String output = process(template, placeholders);
+
+        List<String> fragments = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        Matcher matcher = PLACEHOLDER.matcher(output);
+        int last = 0;
+        while (matcher.find()) {
+            fragments.add(output.substring(last, matcher.start()));
+            variables.add(matcher.group(1));
+            last = matcher.end();
+        }
+        fragments.add(output.substring(last));
+
+        if (!variables.containsAll(names) || !names.containsAll(variables)) {
+            return NOT_PRECOMPILABLE;
+        }
+        return Optional.of(new PrecompiledTemplate(fragments, variables));
+    }
+
+    /**
+     * Reads the source of a template from the first resolver that finds it, the way the engine resolves it.
+     *
+     * @param template the name of the template
+     * @return the source of the template, or null if it cannot be read
+     */
+    private String source(String template) {
+        IEngineConfiguration configuration = templateEngine.getConfiguration();
+        for (ITemplateResolver resolver : configuration.getTemplateResolvers()) {
+            TemplateResolution resolution = resolver.resolveTemplate(configuration, null, template, null);
+            if (resolution == null) {
+                continue;
+            }
+            ITemplateResource resource = resolution.getTemplateResource();
+            if (!resolution.isTemplateResourceExistenceVerified() && (resource == null || !resource.exists())) {
+                continue;
+            }
+            try (Reader reader = resource.reader()) {
+                StringWriter writer = new StringWriter();
+                reader.transferTo(writer);
+                return writer.toString();
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private String process(String template, Map<String, Object> variables) {
+        Context context = new Context();
+        context.setVariables(variables);
+        return templateEngine.process(template, context);
+    }
+
+    private String cacheKey(String template, Set<String> names) {
+        return template + new TreeSet<>(names);
+    }
+
+    private static final class RenderStats {
+        private final LongAdder renders = new LongAdder();
+        private final LongAdder precompiledRenders = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos, boolean precompiled) {
+            renders.increment();
+            if (precompiled) {
+                precompiledRenders.increment();
+            }
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        TemplateRenderMetrics snapshot(String template) {
+            long count = renders.sum();
+            long total = totalNanos.sum();
+            return new TemplateRenderMetrics(
+                    template,
+                    count,
+                    precompiledRenders.sum(),
+                    count == 0 ? 0 : total / count / 1_000,
+                    maxNanos.get() / 1_000,
+                    total / 1_000_000
+            );
+        }
+    }
+}
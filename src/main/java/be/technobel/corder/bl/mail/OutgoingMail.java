@@ -0,0 +1,17 @@
+package be.technobel.corder.bl.mail;
+
+/**
+ * A mail ready to be sent.
+ *
+ * @param to            the recipient's email address
+ * @param subject       the subject of the email
+ * @param content       the content of the email
+ * @param isHtmlContent true if the email content is HTML, false otherwise
+ */
+public record OutgoingMail(
+        String to,
+        String subject,
+        String content,
+        boolean isHtmlContent
+) {
+}
@@ -0,0 +1,48 @@
+package be.technobel.corder.bl.mail;
+
+import org.unbescape.html.HtmlEscape;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A template rendered once with placeholders, kept as its static fragments and the variables between them.
+ * Rendering only concatenates the fragments with the escaped variable values, the same way th:text would.
+ */
+final class PrecompiledTemplate {
+
+    private final List<String> fragments;
+    private final List<String> variables;
+    private final int staticLength;
+
+    /**
+     * @param fragments the static fragments, one more than the variables
+     * @param variables the variable names in their order of appearance
+     */
+    PrecompiledTemplate(List<String> fragments, List<String> variables) {
+        if (fragments.size() != variables.size() + 1)
+            throw new IllegalArgumentException("Il faut un fragment de plus que de variables");
+        this.fragments = List.copyOf(fragments);
+        this.variables = List.copyOf(variables);
+        this.staticLength = fragments.stream().mapToInt(String::length).sum();
+    }
+
+    /**
+     * Substitutes the given values in the pre-built fragments.
+     *
+     * @param values the variable values, a missing or null value renders as an empty string like in Thymeleaf
+     * @return the rendered template
+     */
+    String render(Map<String, Object> values) {
+        StringBuilder builder = new StringBuilder(staticLength + 32 * variables.size());
+        builder.append(fragments.get(0));
+        for (int i = 0; i < variables.size(); i++) {
+            Object value = values.get(variables.get(i));
+            if (value != null) {
+                builder.append(HtmlEscape.escapeHtml4Xml(value.toString()));
+            }
+            builder.append(fragments.get(i + 1));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,130 @@
+package be.technobel.corder.bl.mail;
+
+import be.technobel.corder.pl.config.exceptions.SmtpPoolExhaustedException;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps authenticated SMTP connections open between sends.
+ * Connections idle for longer than the maximum idle time are closed instead of reused, since relays drop them anyway.
+ * The connect and read timeouts come from the mail session, see spring.mail.properties in application.yml.
+ */
+@Component
+public class SmtpTransportPool {
+
+    @FunctionalInterface
+    public interface TransportCallback<T> {
+        T doWithTransport(Transport transport) throws MessagingException;
+    }
+
+    private record PooledTransport(Transport transport, long lastUsed) {
+    }
+
+    private final JavaMailSenderImpl mailSender;
+    private final Semaphore permits;
+    private final BlockingQueue<PooledTransport> idle = new LinkedBlockingQueue<>();
+    private final long maxIdleNanos;
+    private final Duration acquireTimeout;
+
+    public SmtpTransportPool(
+            JavaMailSenderImpl mailSender,
+            @Value("${api.mail.pool.max-connections:4}") int maxConnections,
+            @Value("${api.mail.pool.max-idle:60s}") Duration maxIdle,
+            @Value("${api.mail.pool.acquire-timeout:10s}") Duration acquireTimeout
+    ) {
+        this.mailSender = mailSender;
+        this.permits = new Semaphore(maxConnections, true);
+        this.maxIdleNanos = maxIdle.toNanos();
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    /**
+     * Runs the callback with a connected transport, reusing an idle connection when possible.
+     * The transport goes back to the pool when the callback succeeds and is closed when it throws.
+     *
+     * @param callback the work to do with the transport
+     * @param <T>      the result type of the callback
+     * @return the result of the callback
+     * @throws MessagingException          if the connection or the callback fails
+     * @throws SmtpPoolExhaustedException if no connection became available within the acquire timeout, the relay was not contacted
+     */
+    public <T> T execute(TransportCallback<T> callback) throws MessagingException {
+        acquirePermit();
+        try {
+            Transport transport = borrow();
+            T result;
+            try {
+                result = callback.doWithTransport(transport);
+            } catch (MessagingException | RuntimeException e) {
+                close(transport);
+                throw e;
+            }
+            idle.offer(new PooledTransport(transport, System.nanoTime()));
+            return result;
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void acquirePermit() {
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SmtpPoolExhaustedException("Aucune connexion SMTP disponible");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SmtpPoolExhaustedException("Attente d'une connexion SMTP interrompue", e);
+        }
+    }
+
+    private Transport borrow() throws MessagingException {
+        PooledTransport pooled;
+        while ((pooled = idle.poll()) != null) {
+            boolean fresh = System.nanoTime() - pooled.lastUsed() < maxIdleNanos;
+            if (fresh && pooled.transport().isConnected()) {
+                return pooled.transport();
+            }
+            close(pooled.transport());
+        }
+        return connect();
+    }
+
+    private Transport connect() throws MessagingException {
+        Transport transport = mailSender.getSession().getTransport(mailSender.getProtocol());
+        transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        return transport;
+    }
+
+    private void close(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException ignored) {
+            // the connection is dropped anyway
+        }
+    }
+
+    /**
+     * @return the number of open connections waiting to be reused
+     */
+    public int idleConnections() {
+        return idle.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        PooledTransport pooled;
+        while ((pooled = idle.poll()) != null) {
+            close(pooled.transport());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package be.technobel.corder.bl.mail;
+
+/**
+ * Render metrics of a mail template.
+ *
+ * @param template           the name of the template
+ * @param renders            the number of renders
+ * @param precompiledRenders the number of renders served from the pre-rendered fragments
+ * @param averageMicros      the average render time in microseconds
+ * @param maxMicros          the longest render time in microseconds
+ * @param totalMillis        the cumulated render time in milliseconds
+ */
+public record TemplateRenderMetrics(
+        String template,
+        long renders,
+        long precompiledRenders,
+        long averageMicros,
+        long maxMicros,
+        long totalMillis
+) {
+}
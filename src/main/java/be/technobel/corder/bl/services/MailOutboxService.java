@@ -0,0 +1,11 @@
+package be.technobel.corder.bl.services;
+
+import java.util.List;
+
+public interface MailOutboxService {
+    void enqueue(String to, String subject, String content, boolean isHtmlContent);
+
+    List<Long> claimDue(int limit);
+
+    void dispatch(List<Long> ids);
+}
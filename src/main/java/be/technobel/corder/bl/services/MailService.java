@@ -1,9 +1,17 @@
 package be.technobel.corder.bl.services;
 
+import be.technobel.corder.bl.mail.OutgoingMail;
+import be.technobel.corder.bl.mail.TemplateRenderMetrics;
+
+import java.util.List;
 import java.util.Map;
 
 public interface MailService {
     void sendMail(String to, String subject, String content, boolean isHtmlContent);
 
+    void sendMails(List<OutgoingMail> mails);
+
     String buildEmailTemplate(String template, Map<String, Object> variables);
+
+    List<TemplateRenderMetrics> templateMetrics();
 }
@@ -0,0 +1,11 @@
+package be.technobel.corder.bl.services;
+
+import be.technobel.corder.dl.models.enums.ExportFormat;
+import be.technobel.corder.dl.models.enums.Status;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ParticipationExportService {
+    void export(Status status, ExportFormat format, OutputStream output) throws IOException;
+}
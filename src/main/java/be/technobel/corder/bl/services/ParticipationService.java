@@ -1,10 +1,22 @@
 package be.technobel.corder.bl.services;
 
 import be.technobel.corder.dl.models.Participation;
+import be.technobel.corder.dl.models.ParticipationPhoto;
+import be.technobel.corder.dl.models.PhotoThumbnail;
+import be.technobel.corder.dl.models.enums.Granularity;
+import be.technobel.corder.dl.models.enums.Province;
+import be.technobel.corder.dl.models.enums.Status;
+import be.technobel.corder.dl.models.enums.ThumbnailSize;
+import be.technobel.corder.dl.models.projections.ParticipationDetail;
+import be.technobel.corder.dl.repositories.ParticipationFilter;
+import be.technobel.corder.pl.models.dtos.BulkTransitionDTO;
 import be.technobel.corder.pl.models.dtos.DashboardDTO;
+import be.technobel.corder.pl.models.dtos.LeadTimeDTO;
+import be.technobel.corder.pl.models.dtos.ParticipationPageDTO;
 import be.technobel.corder.pl.models.dtos.StatsDTO;
 import be.technobel.corder.pl.models.forms.ParticipationForm;
 import be.technobel.corder.pl.models.forms.SatisfactionForm;
+import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDate;
@@ -14,24 +26,46 @@ import java.util.Map;
 public interface ParticipationService {
     Participation create(ParticipationForm participationForm);
 
-    List<Participation> findAll();
+    ParticipationPageDTO findPage(ParticipationFilter filter, String cursor, Integer size);
 
     Participation findById(Long id);
 
-    void addPhoto(MultipartFile photo, Long id);
+    ParticipationDetail findDetailById(Long id);
+
+    void addPhoto(MultipartFile photo, Long id, String digest);
+
+    ParticipationPhoto findPhoto(Long id);
+
+    Resource loadPhoto(ParticipationPhoto photo);
+
+    long countPhotoUsages(ParticipationPhoto photo);
+
+    Map<String, List<Long>> findSharedPhotos();
+
+    PhotoThumbnail findThumbnail(ParticipationPhoto photo, ThumbnailSize size);
+
+    Resource loadThumbnail(PhotoThumbnail thumbnail);
 
     void addSatisfaction(SatisfactionForm satisfactionForm);
 
-    void validate(Long id);
+    void validate(Long id, Long version);
+
+    void deny(Long id, Long version);
+
+    void ship(Long id, Long version, String operator);
 
-    void deny(Long id);
+    BulkTransitionDTO changeStatuses(Status status, List<Long> ids, ParticipationFilter filter);
 
-    void ship(Long id);
+    BulkTransitionDTO shipAll(List<Long> ids, ParticipationFilter filter, String operator);
 
     Long[] getWeek(LocalDate firstDay);
 
     Map<String, Long> getWeekWithDays();
 
+    Map<LocalDate, Long> countTimeSeries(LocalDate from, LocalDate to, Granularity granularity, Status status, Province province, String productType);
+
+    List<LeadTimeDTO> findLeadTimes(LocalDate from, LocalDate to);
+
     Long countParticipation();
 
     Long[] countParticipationLast5Months();
@@ -50,6 +84,8 @@ public interface ParticipationService {
 
     StatsDTO statsDTOBuilder();
 
+    void rebuildStats();
+
     Long[] last3Pending();
 
     Long[] last3Validated();
@@ -0,0 +1,9 @@
+package be.technobel.corder.bl.services;
+
+public interface PhotoContentService {
+    void acquire(String key, long contentLength);
+
+    void release(String key);
+
+    int purgeReleased();
+}
@@ -0,0 +1,16 @@
+package be.technobel.corder.bl.services;
+
+import be.technobel.corder.pl.models.dtos.BulkTransitionDTO;
+import be.technobel.corder.pl.models.dtos.ShipmentClaimDTO;
+
+import java.util.List;
+
+public interface ShipmentService {
+    ShipmentClaimDTO claim(String operator, Integer size);
+
+    BulkTransitionDTO complete(String operator, List<Long> ids);
+
+    int release(String operator, List<Long> ids);
+
+    int purgeExpired();
+}
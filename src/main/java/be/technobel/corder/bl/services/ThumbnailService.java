@@ -0,0 +1,10 @@
+package be.technobel.corder.bl.services;
+
+import be.technobel.corder.dl.models.PhotoThumbnail;
+import be.technobel.corder.dl.models.enums.ThumbnailSize;
+
+public interface ThumbnailService {
+    PhotoThumbnail findOrGenerate(String sourceKey, ThumbnailSize size);
+
+    void generateAll(String sourceKey);
+}
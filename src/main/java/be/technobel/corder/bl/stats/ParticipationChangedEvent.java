@@ -0,0 +1,9 @@
+package be.technobel.corder.bl.stats;
+
+/**
+ * Published when a participation is created or when one of the values the statistics are computed from changes.
+ *
+ * @param participationId the id of the participation, or null when many participations changed at once or all the statistics were rebuilt
+ */
+public record ParticipationChangedEvent(Long participationId) {
+}
@@ -0,0 +1,59 @@
+package be.technobel.corder.bl.stats;
+
+import be.technobel.corder.bl.utils.SingleFlightCache;
+import be.technobel.corder.pl.models.dtos.DashboardDTO;
+import be.technobel.corder.pl.models.dtos.StatsDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Caches the statistics and the dashboard polled by the back office.
+ * Both are dropped as soon as a participation change is committed, the time to live only bounds
+ * how long the values depending on the current date, such as the days of the week, may lag behind.
+ */
+@Component
+public class StatsCache {
+
+    private final SingleFlightCache<StatsDTO> stats;
+    private final SingleFlightCache<DashboardDTO> dashboard;
+
+    public StatsCache(@Value("${api.stats.cache-ttl:60s}") Duration ttl) {
+        this.stats = new SingleFlightCache<>(ttl);
+        this.dashboard = new SingleFlightCache<>(ttl);
+    }
+
+    public StatsDTO stats(Supplier<StatsDTO> loader) {
+        return stats.get(loader);
+    }
+
+    public DashboardDTO dashboard(Supplier<DashboardDTO> loader) {
+        return dashboard.get(loader);
+    }
+
+    /**
+     * Keeps the statistics being computed from being cached, for example because some of their sections are missing.
+     */
+    public void invalidateStats() {
+        stats.invalidate();
+    }
+
+    /**
+     * Keeps the dashboard being computed from being cached, for example because some of its sections are missing.
+     */
+    public void invalidateDashboard() {
+        dashboard.invalidate();
+    }
+
+    /**
+     * Drops the cached values once the change is committed, or right away when it was published outside a transaction.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onParticipationChanged(ParticipationChangedEvent event) {
+        stats.invalidate();
+        dashboard.invalidate();
+    }
+}
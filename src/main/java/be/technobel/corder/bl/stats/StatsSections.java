@@ -0,0 +1,184 @@
+package be.technobel.corder.bl.stats;
+
+import be.technobel.corder.pl.config.exceptions.StatsUnavailableException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Computes the independent sections of the statistics and of the dashboard concurrently, each one in its own
+ * read-only transaction, so their latency is the one of the slowest section rather than the sum of all of them.
+ * The pool and its queue are bounded: when they are full a section runs on the calling thread instead.
+ * All the sections of a batch share a deadline, a section that fails or misses it is left empty.
+ */
+@Component
+public class StatsSections {
+
+    private static final Logger log = LoggerFactory.getLogger(StatsSections.class);
+
+    private final TransactionOperations readOnlyTransactions;
+    private final ThreadPoolExecutor workers;
+    private final Duration deadline;
+
+    @Autowired
+    public StatsSections(
+            PlatformTransactionManager transactionManager,
+            @Value("${api.stats.workers:8}") int workers,
+            @Value("${api.stats.queue-capacity:32}") int queueCapacity,
+            @Value("${api.stats.deadline:5s}") Duration deadline
+    ) {
+        this(readOnly(transactionManager), workers, queueCapacity, deadline);
+    }
+
+    public StatsSections(TransactionOperations readOnlyTransactions, int workers, int queueCapacity, Duration deadline) {
+        this.readOnlyTransactions = readOnlyTransactions;
+        this.deadline = deadline;
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(
+                workers,
+                workers,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "stats-sections-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+    }
+
+    private static TransactionOperations readOnly(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    /**
+     * @param name the name of the batch, used in the logs
+     * @return a new batch of sections, whose deadline starts now
+     */
+    public Batch batch(String name) {
+        return new Batch(name, System.nanoTime() + deadline.toNanos());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * The result of one section, available once its batch has been awaited.
+     *
+     * @param <T> the type of the result
+     */
+    public static final class Section<T> {
+        private final String name;
+        private final Future<T> future;
+        private T value;
+
+        private Section(String name, Future<T> future) {
+            this.name = name;
+            this.future = future;
+        }
+
+        /**
+         * @return the result of the section, or null when it failed or missed the deadline
+         */
+        public T value() {
+            return value;
+        }
+    }
+
+    /**
+     * A set of sections computed concurrently.
+     */
+    public final class Batch {
+        private final String name;
+        private final long deadlineNanos;
+        private final List<Section<?>> sections = new ArrayList<>();
+        private final List<String> failed = new ArrayList<>();
+
+        private Batch(String name, long deadlineNanos) {
+            this.name = name;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Starts computing a section.
+         *
+         * @param section the name of the section, used in the logs
+         * @param query   computes the section, in a read-only transaction
+         * @param <T>     the type of the result
+         * @return the section, whose value is available once the batch has been awaited
+         */
+        public <T> Section<T> submit(String section, Supplier<T> query) {
+            FutureTask<T> task = new FutureTask<>(() -> readOnlyTransactions.execute(status -> query.get()));
+            try {
+                workers.execute(task);
+            } catch (RejectedExecutionException e) {
+                // pool saturated, the caller computes the section itself
+                task.run();
+            }
+            Section<T> result = new Section<>(section, task);
+            sections.add(result);
+            return result;
+        }
+
+        /**
+         * Waits for every section until the deadline of the batch. Sections still running at the deadline are cancelled.
+         *
+         * @throws StatsUnavailableException if every section failed
+         */
+        public void await() {
+            for (Section<?> section : sections) {
+                await(section);
+            }
+            if (!failed.isEmpty()) {
+                log.warn("Statistiques {} incomplètes, sections en échec: {}", name, failed);
+            }
+            if (!sections.isEmpty() && failed.size() == sections.size()) {
+                throw new StatsUnavailableException("Les statistiques sont momentanément indisponibles");
+            }
+        }
+
+        private <T> void await(Section<T> section) {
+            try {
+                section.value = section.future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                section.future.cancel(true);
+                failed.add(section.name);
+            } catch (ExecutionException e) {
+                log.warn("Section {} en échec", section.name, e.getCause());
+                failed.add(section.name);
+            } catch (CancellationException e) {
+                failed.add(section.name);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                section.future.cancel(true);
+                failed.add(section.name);
+            }
+        }
+
+        /**
+         * @return true when every section succeeded, false when at least one of them is empty
+         */
+        public boolean complete() {
+            return failed.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package be.technobel.corder.bl.storage;
+
+import be.technobel.corder.dl.repositories.PhotoDataRepository;
+import be.technobel.corder.pl.config.exceptions.PhotoException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stores photos in the photo_data table. This is the default store, it needs no shared file system
+ * but loads each downloaded photo in memory.
+ * Uploads are spooled to a temporary file to get their key, then streamed to the database by the JDBC driver.
+ */
+@Component
+@ConditionalOnProperty(name = "api.photo-store.type", havingValue = "database", matchIfMissing = true)
+public class DatabasePhotoStore implements PhotoStore {
+
+    private final PhotoDataRepository photoDataRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final long maxBytes;
+
+    public DatabasePhotoStore(
+            PhotoDataRepository photoDataRepository,
+            JdbcTemplate jdbcTemplate,
+            @Value("${api.photo-store.max-size:5MB}") DataSize maxSize
+    ) {
+        this.photoDataRepository = photoDataRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxBytes = maxSize.toBytes();
+    }
+
+    @Override
+    public SpooledPhoto spool(InputStream content) {
+        try {
+            return SpooledPhoto.spool(content, maxBytes);
+        } catch (IOException e) {
+            throw new PhotoException("Impossible d'enregistrer la photo");
+        }
+    }
+
+    @Override
+    public StoredPhoto save(SpooledPhoto photo) {
+        if (!photoDataRepository.existsById(photo.key())) {
+            try (InputStream in = photo.openStream()) {
+                jdbcTemplate.update("INSERT INTO photo_data (content_key, data) VALUES (?, ?) ON CONFLICT (content_key) DO NOTHING", ps -> {
+                    ps.setString(1, photo.key());
+                    ps.setBinaryStream(2, in, photo.contentLength());
+                });
+            } catch (IOException e) {
+                throw new PhotoException("Impossible d'enregistrer la photo");
+            }
+        }
+        return new StoredPhoto(photo.key(), photo.contentLength());
+    }
+
+    @Override
+    public Resource load(String key) {
+        return photoDataRepository.findById(key)
+                .map(photoData -> new ByteArrayResource(photoData.getData()))
+                .orElseThrow(() -> new PhotoException("Photo introuvable: " + key));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return photoDataRepository.existsById(key);
+    }
+
+    @Override
+    public void delete(String key) {
+        photoDataRepository.deleteById(key);
+    }
+}
@@ -0,0 +1,89 @@
+package be.technobel.corder.bl.storage;
+
+import be.technobel.corder.pl.config.exceptions.PhotoException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+
+/**
+ * Stores photos as files named after their content key, under {@code <root>/<2 first chars>/<key>}.
+ * Uploads are streamed to a temporary file next to the photos, then moved in place once their key is known,
+ * so a reader never sees a partial photo.
+ * Downloads are streamed from the file without loading it in memory.
+ */
+@Component
+@ConditionalOnProperty(name = "api.photo-store.type", havingValue = "filesystem")
+public class FileSystemPhotoStore implements PhotoStore {
+
+    private final Path root;
+    private final long maxBytes;
+
+    public FileSystemPhotoStore(
+            @Value("${api.photo-store.root}") Path root,
+            @Value("${api.photo-store.max-size:5MB}") DataSize maxSize
+    ) throws IOException {
+        this.root = Files.createDirectories(root.toAbsolutePath().normalize());
+        this.maxBytes = maxSize.toBytes();
+        Files.createDirectories(this.root.resolve("tmp"));
+    }
+
+    @Override
+    public SpooledPhoto spool(InputStream content) {
+        try {
+            return SpooledPhoto.spool(content, root.resolve("tmp"), maxBytes);
+        } catch (IOException e) {
+            throw new PhotoException("Impossible d'enregistrer la photo");
+        }
+    }
+
+    @Override
+    public StoredPhoto save(SpooledPhoto photo) {
+        Path target = pathOf(photo.key());
+        try {
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                Files.move(photo.file(), target, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (FileAlreadyExistsException e) {
+            // stored meanwhile by a concurrent upload of the same photo
+        } catch (IOException e) {
+            throw new PhotoException("Impossible d'enregistrer la photo");
+        }
+        return new StoredPhoto(photo.key(), photo.contentLength());
+    }
+
+    @Override
+    public Resource load(String key) {
+        Path path = pathOf(key);
+        if (!Files.isRegularFile(path)) {
+            throw new PhotoException("Photo introuvable: " + key);
+        }
+        return new FileSystemResource(path);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(pathOf(key));
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(pathOf(key));
+        } catch (IOException e) {
+            throw new PhotoException("Impossible de supprimer la photo: " + key);
+        }
+    }
+
+    private Path pathOf(String key) {
+        PhotoDigests.checkKey(key);
+        return root.resolve(key.substring(0, 2)).resolve(key);
+    }
+}
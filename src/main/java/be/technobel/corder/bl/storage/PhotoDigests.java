@@ -0,0 +1,46 @@
+package be.technobel.corder.bl.storage;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Computes the content keys used by the photo stores.
+ */
+public final class PhotoDigests {
+
+    private PhotoDigests() {
+    }
+
+    /**
+     * @return a new SHA-256 message digest
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    /**
+     * @param content the photo bytes
+     * @return the SHA-256 digest of the bytes in lowercase hexadecimal
+     */
+    public static String keyOf(byte[] content) {
+        return HexFormat.of().formatHex(newDigest().digest(content));
+    }
+
+    /**
+     * Rejects anything that is not a key produced by this class, so a key can safely be used in a file path.
+     *
+     * @param key the key to check
+     * @return the key
+     * @throws IllegalArgumentException if the key is not a lowercase hexadecimal SHA-256 digest
+     */
+    public static String checkKey(String key) {
+        if (key == null || !key.matches("[0-9a-f]{64}"))
+            throw new IllegalArgumentException("Clé de photo invalide: " + key);
+        return key;
+    }
+}
@@ -0,0 +1,51 @@
+package be.technobel.corder.bl.storage;
+
+import be.technobel.corder.pl.config.exceptions.PhotoException;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stores photo bytes by content. The key of a photo is the SHA-256 digest of its bytes, in lowercase hexadecimal,
+ * so identical photos share the same key and the same storage.
+ */
+public interface PhotoStore {
+
+    /**
+     * Copies a photo to a temporary file of the store through a fixed size buffer, computing its key on the way.
+     * The stream is not closed.
+     *
+     * @param content the photo bytes
+     * @return the spooled photo, to be closed once saved
+     * @throws be.technobel.corder.pl.config.exceptions.PhotoTooLargeException if the photo exceeds the maximum size of the store
+     */
+    SpooledPhoto spool(InputStream content);
+
+    /**
+     * Stores a spooled photo, unless the store already holds the same content.
+     *
+     * @param photo the spooled photo
+     * @return the key and size of the stored photo
+     */
+    StoredPhoto save(SpooledPhoto photo);
+
+    default StoredPhoto save(InputStream content) {
+        try (SpooledPhoto spooled = spool(content)) {
+            return save(spooled);
+        } catch (IOException e) {
+            throw new PhotoException("Impossible d'enregistrer la photo");
+        }
+    }
+
+    default String save(byte[] content) {
+        return save(new ByteArrayInputStream(content)).key();
+    }
+
+    Resource load(String key);
+
+    boolean exists(String key);
+
+    void delete(String key);
+}
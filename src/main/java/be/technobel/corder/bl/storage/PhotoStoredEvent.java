@@ -0,0 +1,9 @@
+package be.technobel.corder.bl.storage;
+
+/**
+ * Published when a photo is attached to a participation, handled once the transaction is committed.
+ *
+ * @param storageKey the key of the photo in the PhotoStore
+ */
+public record PhotoStoredEvent(String storageKey) {
+}
@@ -0,0 +1,96 @@
+package be.technobel.corder.bl.storage;
+
+import be.technobel.corder.pl.config.exceptions.PhotoTooLargeException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * A photo copied to a temporary file through a fixed size buffer, with its content key and size computed while copying.
+ * Only the buffer is held in memory, whatever the size of the photo. The temporary file is deleted on close,
+ * unless it has been moved away meanwhile.
+ */
+public final class SpooledPhoto implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Path file;
+    private final String key;
+    private final long contentLength;
+
+    private SpooledPhoto(Path file, String key, long contentLength) {
+        this.file = file;
+        this.key = key;
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * Copies a photo to a temporary file of the default temporary directory.
+     *
+     * @see #spool(InputStream, Path, long)
+     */
+    public static SpooledPhoto spool(InputStream content, long maxBytes) throws IOException {
+        return spool(content, null, maxBytes);
+    }
+
+    /**
+     * Copies a photo to a temporary file, stopping as soon as it exceeds the maximum size.
+     *
+     * @param content   the photo bytes, not closed by this method
+     * @param directory the directory of the temporary file, or null for the default temporary directory
+     * @param maxBytes  the maximum size of the photo
+     * @return the spooled photo
+     * @throws PhotoTooLargeException if the photo has more than maxBytes bytes, nothing is left on disk
+     * @throws IOException            if the photo cannot be read or written
+     */
+    public static SpooledPhoto spool(InputStream content, Path directory, long maxBytes) throws IOException {
+        Path file = directory == null
+                ? Files.createTempFile("photo", ".part")
+                : Files.createTempFile(directory, "photo", ".part");
+        try {
+            MessageDigest digest = PhotoDigests.newDigest();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long length = 0;
+            try (OutputStream out = Files.newOutputStream(file)) {
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    length += read;
+                    if (length > maxBytes)
+                        throw new PhotoTooLargeException("La photo dépasse la taille maximale de " + maxBytes + " octets");
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+            return new SpooledPhoto(file, HexFormat.of().formatHex(digest.digest()), length);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public long contentLength() {
+        return contentLength;
+    }
+
+    public InputStream openStream() throws IOException {
+        return Files.newInputStream(file);
+    }
+
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
@@ -0,0 +1,10 @@
+package be.technobel.corder.bl.storage;
+
+/**
+ * Result of saving a photo in a PhotoStore.
+ *
+ * @param key           the SHA-256 digest of the photo bytes, in lowercase hexadecimal
+ * @param contentLength the number of bytes of the photo
+ */
+public record StoredPhoto(String key, long contentLength) {
+}
@@ -0,0 +1,73 @@
+package be.technobel.corder.bl.storage;
+
+import be.technobel.corder.bl.services.ThumbnailService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates the thumbnails of each new photo in the background, once the upload is committed.
+ * The pool and its queue are bounded: when they are full the photo is skipped and its thumbnails
+ * are generated on the first request instead, so a burst of uploads never slows the uploads down.
+ */
+@Component
+public class ThumbnailPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailPipeline.class);
+
+    private final ThumbnailService thumbnailService;
+    private final ThreadPoolExecutor workers;
+
+    public ThumbnailPipeline(
+            ThumbnailService thumbnailService,
+            @Value("${api.photo-store.thumbnails.workers:2}") int workers,
+            @Value("${api.photo-store.thumbnails.queue-capacity:50}") int queueCapacity
+    ) {
+        this.thumbnailService = thumbnailService;
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(
+                workers,
+                workers,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "photo-thumbnails-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+    }
+
+    @TransactionalEventListener
+    public void onPhotoStored(PhotoStoredEvent event) {
+        try {
+            workers.execute(() -> generate(event.storageKey()));
+        } catch (RejectedExecutionException e) {
+            // queue full, the thumbnails will be generated on demand
+        }
+    }
+
+    private void generate(String storageKey) {
+        try {
+            thumbnailService.generateAll(storageKey);
+        } catch (RuntimeException e) {
+            log.warn("Miniatures de la photo {} non générées", storageKey, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
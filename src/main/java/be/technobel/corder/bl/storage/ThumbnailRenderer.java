@@ -0,0 +1,83 @@
+package be.technobel.corder.bl.storage;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Decodes photos and renders JPEG thumbnails with javax.imageio.
+ */
+public final class ThumbnailRenderer {
+
+    private ThumbnailRenderer() {
+    }
+
+    /**
+     * Decodes a photo for thumbnails of at most maxPixels. When the photo is much larger, only every n-th pixel is decoded,
+     * so a 12 megapixel photo does not need 48 MB of heap to produce a 512 px thumbnail.
+     *
+     * @param content   the photo bytes
+     * @param maxPixels the longest side of the largest thumbnail to render from the image
+     * @return the decoded image, at least twice as large as maxPixels when the photo is
+     * @throws IOException if the photo cannot be read or is not an image
+     */
+    public static BufferedImage read(InputStream content, int maxPixels) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Format d'image non supporté");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longestSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longestSide / (maxPixels * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Renders a JPEG thumbnail whose longest side is maxPixels, keeping the aspect ratio. Smaller images are not enlarged
+     * and transparent pixels become white.
+     *
+     * @param image     the decoded photo
+     * @param maxPixels the longest side of the thumbnail
+     * @return the JPEG bytes of the thumbnail
+     * @throws IOException if the thumbnail cannot be encoded
+     */
+    public static byte[] render(BufferedImage image, int maxPixels) throws IOException {
+        double ratio = Math.min(1.0, (double) maxPixels / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(thumbnail, "jpg", out)) {
+            throw new IOException("Encodeur JPEG indisponible");
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,38 @@
+package be.technobel.corder.bl.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * The position of a participation in a listing sorted by participation date and id, exchanged with clients as an opaque string.
+ *
+ * @param participationDate the participation date of the last participation read
+ * @param id                the id of the last participation read
+ */
+public record ParticipationCursor(LocalDate participationDate, Long id) {
+
+    public String encode() {
+        String position = participationDate + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor a cursor given by {@link #encode()}
+     * @return the position
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static ParticipationCursor decode(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf('_');
+            return new ParticipationCursor(
+                    LocalDate.parse(position.substring(0, separator)),
+                    Long.parseLong(position.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Curseur invalide: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package be.technobel.corder.bl.utils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caches a single value for a bounded time. Concurrent misses share one computation:
+ * the first caller computes the value while the others wait for its result.
+ *
+ * @param <T> the type of the cached value
+ */
+public class SingleFlightCache<T> {
+
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicReference<Entry<T>> current = new AtomicReference<>();
+
+    /**
+     * Creates a cache.
+     *
+     * @param ttl how long a computed value is served, counted from the start of its computation
+     */
+    public SingleFlightCache(Duration ttl) {
+        this(ttl, System::nanoTime);
+    }
+
+    SingleFlightCache(Duration ttl, LongSupplier nanoClock) {
+        if (ttl.isNegative())
+            throw new IllegalArgumentException("ttl ne peut pas être négatif");
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns the cached value, computing it when it is missing or expired.
+     * A failed computation is not cached, its exception is thrown to every caller that waited for it.
+     *
+     * @param loader computes the value, in the thread of the caller that missed
+     * @return the cached or computed value
+     */
+    public T get(Supplier<T> loader) {
+        while (true) {
+            Entry<T> entry = current.get();
+            if (entry != null && (!entry.future().isDone() || nanoClock.getAsLong() - entry.startedAt() < ttlNanos)) {
+                return join(entry);
+            }
+            Entry<T> fresh = new Entry<>(new CompletableFuture<>(), nanoClock.getAsLong());
+            if (current.compareAndSet(entry, fresh)) {
+                try {
+                    fresh.future().complete(loader.get());
+                } catch (RuntimeException | Error e) {
+                    current.compareAndSet(fresh, null);
+                    fresh.future().completeExceptionally(e);
+                    throw e;
+                }
+                return fresh.future().join();
+            }
+        }
+    }
+
+    /**
+     * Drops the cached value. A computation already running still answers the callers waiting for it,
+     * but the next caller computes a new value. Called from the loader, it keeps the value being computed from being cached.
+     */
+    public void invalidate() {
+        current.set(null);
+    }
+
+    private T join(Entry<T> entry) {
+        try {
+            return entry.future().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime)
+                throw runtime;
+            if (e.getCause() instanceof Error error)
+                throw error;
+            throw e;
+        }
+    }
+
+    private record Entry<T>(CompletableFuture<T> future, long startedAt) {
+    }
+}
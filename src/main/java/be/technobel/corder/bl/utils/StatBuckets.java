@@ -0,0 +1,98 @@
+package be.technobel.corder.bl.utils;
+
+import be.technobel.corder.dl.models.Participation;
+import be.technobel.corder.dl.models.ParticipationStatKey;
+import be.technobel.corder.dl.models.enums.Province;
+import be.technobel.corder.dl.models.enums.Status;
+import be.technobel.corder.dl.models.projections.StatSource;
+import be.technobel.corder.dl.models.projections.StatusTransition;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Computes the statistics bucket a participation is counted in.
+ */
+public final class StatBuckets {
+
+    public static final List<String> KNOWN_SATISFACTION_COMMENTS = List.of("C'était trop long", "C'était trop court", "L'appareil ne fonctionnait pas", "Informations pas claires");
+
+    /**
+     * Category of the comments that are not one of the predefined ones.
+     */
+    public static final String OTHER_COMMENT = "AUTRE";
+
+    /**
+     * Day of the bucket of the participations without participation date, the day being part of the primary key.
+     * It lies outside any range the dashboard asks for, so these participations only show up in the totals.
+     */
+    public static final LocalDate UNKNOWN_DAY = LocalDate.EPOCH;
+
+    /**
+     * Order on every column of the bucket. Transactions updating several counters update them in this order,
+     * so two of them never wait for each other's rows in opposite orders.
+     */
+    public static final Comparator<ParticipationStatKey> KEY_ORDER = Comparator
+            .comparing(ParticipationStatKey::getDay)
+            .thenComparing(ParticipationStatKey::getProvince)
+            .thenComparing(ParticipationStatKey::getProductType)
+            .thenComparingInt(ParticipationStatKey::getSatisfaction)
+            .thenComparing(ParticipationStatKey::getCommentCategory)
+            .thenComparing(ParticipationStatKey::getStatus);
+
+    private StatBuckets() {
+    }
+
+    public static ParticipationStatKey keyOf(Participation participation) {
+        return keyOf(
+                participation.getParticipationDate(),
+                participation.getAddress() == null ? null : participation.getAddress().getPostCode(),
+                participation.getProductType(),
+                participation.getSatisfaction(),
+                participation.getSatisfactionComment(),
+                participation.getStatus()
+        );
+    }
+
+    public static ParticipationStatKey keyOf(StatSource source) {
+        return keyOf(source.day(), source.postCode(), source.productType(), source.satisfaction(), source.satisfactionComment(), source.status());
+    }
+
+    /**
+     * @param transition a participation whose status has been changed
+     * @param status     the status to compute the bucket with, its previous status or its new one
+     * @return the bucket of the participation with the given status
+     */
+    public static ParticipationStatKey keyOf(StatusTransition transition, Status status) {
+        return keyOf(transition.participationDate(), transition.postCode(), transition.productType(), transition.satisfaction(), transition.satisfactionComment(), status);
+    }
+
+    private static ParticipationStatKey keyOf(LocalDate day, Integer postCode, String productType, int satisfaction, String comment, Status status) {
+        Province province = Province.ofPostCode(postCode);
+        return ParticipationStatKey.builder()
+                .day(day == null ? UNKNOWN_DAY : day)
+                .province(province == null ? "" : province.name())
+                .productType(productType == null ? "" : productType)
+                .satisfaction(satisfaction)
+                .commentCategory(commentCategoryOf(comment))
+                .status(status)
+                .build();
+    }
+
+    /**
+     * @param comment a satisfaction comment
+     * @return the predefined comment it matches ignoring case, {@link #OTHER_COMMENT} for any other comment, or an empty string without comment
+     */
+    public static String commentCategoryOf(String comment) {
+        if (comment == null) {
+            return "";
+        }
+        for (String known : KNOWN_SATISFACTION_COMMENTS) {
+            if (known.equalsIgnoreCase(comment)) {
+                return known;
+            }
+        }
+        return OTHER_COMMENT;
+    }
+}
@@ -0,0 +1,79 @@
+package be.technobel.corder.bl.utils;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A fixed set of locks where each key is mapped to one stripe by its hash.
+ * Unrelated keys rarely share a stripe, so callers only contend when they really work on the same keys.
+ */
+public class StripedLock {
+    private final ReentrantLock[] stripes;
+
+    /**
+     * Creates a striped lock.
+     *
+     * @param stripes the number of stripes, rounded up to the next power of two
+     */
+    public StripedLock(int stripes) {
+        if (stripes <= 0)
+            throw new IllegalArgumentException("stripes doit être positif");
+        int size = Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new ReentrantLock[Math.max(size, 1)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Runs the given action while holding the stripes of every given key.
+     * Stripes are always acquired in index order, so two callers locking the same keys in a different order cannot deadlock.
+     *
+     * @param action the action to run
+     * @param keys   the keys to lock, null keys are ignored
+     * @param <T>    the result type of the action
+     * @return the result of the action
+     */
+    public <T> T withLocks(Supplier<T> action, Object... keys) {
+        int[] indexes = Arrays.stream(keys)
+                .filter(Objects::nonNull)
+                .mapToInt(this::indexOf)
+                .distinct()
+                .sorted()
+                .toArray();
+
+        int locked = 0;
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the stripe index of a key, spreading the high bits of its hash to the low ones.
+     *
+     * @param key the key
+     * @return the index of the stripe guarding the key
+     */
+    int indexOf(Object key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return hash & (stripes.length - 1);
+    }
+
+    /**
+     * @return the number of stripes
+     */
+    public int size() {
+        return stripes.length;
+    }
+}
@@ -72,7 +72,8 @@ public class DataInitialization {
                 );
                 participationService.addPhoto(
                         multipartFile,
-                        participationService.findByEmail(email).getId()
+                        participationService.findByEmail(email).getId(),
+                        null
                 );
             }
         };
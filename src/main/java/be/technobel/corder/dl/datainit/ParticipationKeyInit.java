@@ -0,0 +1,72 @@
+package be.technobel.corder.dl.datainit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+
+/**
+ * Fills the normalized email and address keys of participations created before those columns existed.
+ * The normalization mirrors ParticipationServiceImpl#formatEmail and ParticipationServiceImpl#formatAddress:
+ * like String#trim, the email is stripped of every leading and trailing character up to U+0020.
+ * Keys are unique, and legacy rows may hold duplicates: a key shared by several participations is only given to the
+ * oldest one, the others keep a null key and are logged, so a duplicate never prevents the application from starting.
+ */
+@Configuration
+public class ParticipationKeyInit {
+
+    private static final Logger log = LoggerFactory.getLogger(ParticipationKeyInit.class);
+
+    private static final String BACKFILL = """
+            WITH computed AS (
+                SELECT p.id,
+                       lower(regexp_replace(p.email, '^[\\x01-\\x20]+|[\\x01-\\x20]+$', '', 'g')) AS email_key,
+                       regexp_replace(lower(trim(a.street) || trim(a.city) || a.post_code), '[^a-zA-Z0-9]', '', 'g') AS address_key
+                FROM participation p
+                JOIN address a ON a.address_id = p.address_id
+                WHERE p.email_key IS NULL OR p.address_key IS NULL
+            ), ranked AS (
+                SELECT c.id, c.email_key, c.address_key,
+                       row_number() OVER (PARTITION BY c.email_key ORDER BY c.id) AS email_rank,
+                       row_number() OVER (PARTITION BY c.address_key ORDER BY c.id) AS address_rank
+                FROM computed c
+            )
+            UPDATE participation p
+            SET email_key = COALESCE(p.email_key, CASE
+                    WHEN r.email_rank = 1 AND NOT EXISTS (SELECT 1 FROM participation o WHERE o.email_key = r.email_key AND o.id <> p.id)
+                    THEN r.email_key END),
+                address_key = COALESCE(p.address_key, CASE
+                    WHEN r.address_rank = 1 AND NOT EXISTS (SELECT 1 FROM participation o WHERE o.address_key = r.address_key AND o.id <> p.id)
+                    THEN r.address_key END)
+            FROM ranked r
+            WHERE r.id = p.id
+            """;
+
+    @Bean
+    CommandLineRunner initParticipationKeys(JdbcTemplate jdbcTemplate, TransactionOperations transactionOperations) {
+        // auto-commit is disabled on the pool, the update must run in a transaction to be committed
+        return args -> {
+            try {
+                Integer updated = transactionOperations.execute(status -> jdbcTemplate.update(BACKFILL));
+                if (updated != null && updated > 0) {
+                    log.info("{} clés de participation initialisées", updated);
+                }
+                List<Long> missing = transactionOperations.execute(status -> jdbcTemplate.queryForList(
+                        "SELECT id FROM participation WHERE email_key IS NULL OR address_key IS NULL ORDER BY id",
+                        Long.class
+                ));
+                if (missing != null && !missing.isEmpty()) {
+                    log.warn("{} participations sans clé, en double ou sans adresse: {}", missing.size(), missing);
+                }
+            } catch (DataAccessException e) {
+                log.error("Initialisation des clés de participation impossible", e);
+            }
+        };
+    }
+}
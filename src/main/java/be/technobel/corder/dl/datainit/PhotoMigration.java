@@ -0,0 +1,87 @@
+package be.technobel.corder.dl.datainit;
+
+import be.technobel.corder.bl.storage.PhotoStore;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+
+/**
+ * Moves the photos stored as large objects by earlier versions to the PhotoStore, one photo at a time:
+ * first the ones still in the participation table, then the ones in the blob column of participation_photo.
+ * The large objects are unlinked and the old columns dropped afterwards. Does nothing once the columns are gone.
+ * Then counts the references of the stored photos that have no photo_content row yet.
+ */
+@Configuration
+public class PhotoMigration {
+
+    @Bean
+    CommandLineRunner migratePhotos(JdbcTemplate jdbcTemplate, TransactionOperations transactionOperations, PhotoStore photoStore) {
+        return args -> {
+            if (hasColumn(jdbcTemplate, "participation", "blob")) {
+                transactionOperations.executeWithoutResult(status -> {
+                    List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM participation WHERE blob IS NOT NULL", Long.class);
+                    for (Long id : ids) {
+                        jdbcTemplate.query("SELECT picture_name, picture_type, lo_get(blob) AS content FROM participation WHERE id = ?", rs -> {
+                            byte[] content = rs.getBytes("content");
+                            jdbcTemplate.update("""
+                                            INSERT INTO participation_photo (participation_id, picture_name, picture_type, storage_key, content_length)
+                                            VALUES (?, ?, ?, ?, ?)
+                                            ON CONFLICT (participation_id) DO NOTHING
+                                            """,
+                                    id, rs.getString("picture_name"), rs.getString("picture_type"), photoStore.save(content), content.length);
+                        }, id);
+                    }
+                    jdbcTemplate.query("SELECT lo_unlink(blob) FROM participation WHERE blob IS NOT NULL", rs -> {
+                    });
+                    jdbcTemplate.execute("""
+                            ALTER TABLE participation
+                                DROP COLUMN blob,
+                                DROP COLUMN IF EXISTS picture_name,
+                                DROP COLUMN IF EXISTS picture_type
+                            """);
+                    System.out.println(ids.size() + " photos déplacées de participation vers le stockage des photos");
+                });
+            }
+
+            if (hasColumn(jdbcTemplate, "participation_photo", "blob")) {
+                transactionOperations.executeWithoutResult(status -> {
+                    List<Long> ids = jdbcTemplate.queryForList("SELECT participation_id FROM participation_photo WHERE blob IS NOT NULL", Long.class);
+                    for (Long id : ids) {
+                        byte[] content = jdbcTemplate.queryForObject("SELECT lo_get(blob) FROM participation_photo WHERE participation_id = ?", byte[].class, id);
+                        jdbcTemplate.update("UPDATE participation_photo SET storage_key = ?, content_length = ? WHERE participation_id = ?",
+                                photoStore.save(content), content.length, id);
+                    }
+                    jdbcTemplate.query("SELECT lo_unlink(blob) FROM participation_photo WHERE blob IS NOT NULL", rs -> {
+                    });
+                    jdbcTemplate.execute("ALTER TABLE participation_photo DROP COLUMN blob");
+                    System.out.println(ids.size() + " photos déplacées de participation_photo vers le stockage des photos");
+                });
+            }
+
+            transactionOperations.executeWithoutResult(status -> {
+                int counted = jdbcTemplate.update("""
+                        INSERT INTO photo_content (content_key, content_length, ref_count)
+                        SELECT storage_key, max(content_length), count(*)
+                        FROM participation_photo
+                        WHERE storage_key IS NOT NULL
+                        GROUP BY storage_key
+                        ON CONFLICT (content_key) DO NOTHING
+                        """);
+                if (counted > 0) {
+                    System.out.println(counted + " contenus de photos ajoutés au comptage des références");
+                }
+            });
+        };
+    }
+
+    private boolean hasColumn(JdbcTemplate jdbcTemplate, String table, String column) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM information_schema.columns WHERE table_name = ? AND column_name = ?",
+                Integer.class, table, column);
+        return count != null && count > 0;
+    }
+}
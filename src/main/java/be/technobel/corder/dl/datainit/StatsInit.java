@@ -0,0 +1,30 @@
+package be.technobel.corder.dl.datainit;
+
+import be.technobel.corder.bl.services.ParticipationService;
+import be.technobel.corder.dl.models.enums.Province;
+import be.technobel.corder.dl.repositories.ParticipationRepository;
+import be.technobel.corder.dl.repositories.ParticipationStatRepository;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+
+/**
+ * Fills the statistics table from the participations created before it existed,
+ * and rebuilds it when it still holds the provinces of the former Wallonia-only mapping.
+ */
+@Configuration
+public class StatsInit {
+
+    @Bean
+    CommandLineRunner initStats(ParticipationStatRepository participationStatRepository, ParticipationRepository participationRepository, ParticipationService participationService) {
+        return args -> {
+            boolean missing = participationStatRepository.count() == 0 && participationRepository.count() > 0;
+            boolean outdated = participationStatRepository.existsByProvinceNotIn(Arrays.stream(Province.values()).map(Province::name).toList());
+            if (missing || outdated) {
+                participationService.rebuildStats();
+            }
+        };
+    }
+}
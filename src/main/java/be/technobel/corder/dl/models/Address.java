@@ -9,6 +9,7 @@ import lombok.*;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(indexes = @Index(name = "idx_address_post_code", columnList = "post_code"))
 public class Address {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -13,6 +13,15 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = "uk_participation_email_key", columnNames = "email_key"),
+        @UniqueConstraint(name = "uk_participation_address_key", columnNames = "address_key")
+}, indexes = {
+        // listing order and keyset, see ParticipationRepositoryCustomImpl#findSummaries
+        @Index(name = "idx_participation_date_id", columnList = "participation_date DESC, id DESC"),
+        @Index(name = "idx_participation_status_date_id", columnList = "status, participation_date DESC, id DESC"),
+        @Index(name = "idx_participation_product_type_date_id", columnList = "product_type, participation_date DESC, id DESC")
+})
 public class Participation {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -27,22 +36,37 @@ public class Participation {
 
     private String email;
 
+    /**
+     * Normalized email used for duplicate detection, see ParticipationServiceImpl#formatEmail.
+     */
+    @Column(name = "email_key")
+    private String emailKey;
+
     @OneToOne(cascade = CascadeType.ALL)
     @JoinColumn(referencedColumnName = "address_id", name = "address_id")
     private Address address;
 
+    /**
+     * Normalized address used for duplicate detection, see ParticipationServiceImpl#formatAddress.
+     */
+    @Column(name = "address_key")
+    private String addressKey;
+
     @Enumerated(EnumType.STRING)
     private Status status;
     @Temporal(value = TemporalType.TIMESTAMP)
     private LocalDateTime statusUpdateDate;
-    private String pictureName;
-    private String pictureType;
-    @Lob
-    @Basic(fetch = FetchType.LAZY)
-    private byte[] blob;
     private String productType;
     private int satisfaction;
     private String satisfactionComment;
     private boolean acceptNewsletter;
     private boolean acceptExposure;
+
+    /**
+     * Incremented by every write, so a write based on an outdated read is refused instead of overwriting a concurrent one.
+     * Status changes increment it in their conditional UPDATE, see ParticipationRepositoryCustomImpl#updateStatus.
+     */
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
 }
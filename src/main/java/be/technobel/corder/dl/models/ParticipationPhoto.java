@@ -0,0 +1,46 @@
+package be.technobel.corder.dl.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * The metadata of the photo of a participation. It shares the id of its participation,
+ * the bytes themselves are kept by the PhotoStore under the storage key.
+ */
+@Setter
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "participation_photo")
+public class ParticipationPhoto {
+    @Id
+    private Long id;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "participation_id")
+    private Participation participation;
+
+    private String pictureName;
+    private String pictureType;
+
+    /**
+     * Key of the photo bytes in the PhotoStore.
+     */
+    @Column(name = "storage_key", length = 64)
+    private String storageKey;
+
+    /**
+     * Size of the photo in bytes.
+     */
+    private long contentLength;
+
+    /**
+     * Moment the photo was uploaded, null for the photos migrated from earlier versions.
+     */
+    private LocalDateTime uploadedAt;
+}
@@ -0,0 +1,24 @@
+package be.technobel.corder.dl.models;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.*;
+
+/**
+ * The number of participations of a statistics bucket. The table is maintained in the same transaction
+ * as every change of a participation, so the statistics read a few rows per day instead of the participations.
+ */
+@Setter
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "participation_stat")
+public class ParticipationStat {
+    @EmbeddedId
+    private ParticipationStatKey key;
+
+    private long participations;
+}
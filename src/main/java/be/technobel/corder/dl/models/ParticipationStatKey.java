@@ -0,0 +1,53 @@
+package be.technobel.corder.dl.models;
+
+import be.technobel.corder.dl.models.enums.Status;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.*;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * The bucket of a statistics row. Every column is part of the primary key, so missing values are stored as an empty string,
+ * and a missing day as 1970-01-01.
+ */
+@Setter
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@Embeddable
+public class ParticipationStatKey implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Column(name = "day")
+    private LocalDate day;
+
+    /**
+     * The name of the {@link be.technobel.corder.dl.models.enums.Province}, or empty when the post code has no province.
+     */
+    @Column(name = "province", length = 32)
+    private String province;
+
+    @Column(name = "product_type")
+    private String productType;
+
+    @Column(name = "satisfaction")
+    private int satisfaction;
+
+    /**
+     * One of the predefined satisfaction comments, AUTRE for a free comment, or empty without comment.
+     */
+    @Column(name = "comment_category")
+    private String commentCategory;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 16)
+    private Status status;
+}
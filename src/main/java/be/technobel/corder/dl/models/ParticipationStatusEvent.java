@@ -0,0 +1,45 @@
+package be.technobel.corder.dl.models;
+
+import be.technobel.corder.dl.models.enums.Status;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A status change of a participation, in an append-only log: rows are never updated nor deleted.
+ * Transitions are logged by the statement changing the status, see ParticipationRepositoryCustomImpl#updateStatus,
+ * hence the identity column rather than a sequence allocated by Hibernate.
+ */
+@Setter
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "participation_status_event", indexes = {
+        // lead time of a transition, see ParticipationStatusEventRepositoryCustomImpl#findLeadTimes
+        @Index(name = "idx_participation_status_event_participation", columnList = "participation_id, occurred_at"),
+        @Index(name = "idx_participation_status_event_occurred_at", columnList = "occurred_at")
+})
+public class ParticipationStatusEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "participation_id", nullable = false)
+    private Long participationId;
+
+    /**
+     * Null for the creation of the participation.
+     */
+    @Enumerated(EnumType.STRING)
+    private Status fromStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status toStatus;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,35 @@
+package be.technobel.corder.dl.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * The reference count of a photo content, shared by all the participations whose photo has the same SHA-256 digest
+ * and by all the thumbnails with the same bytes.
+ * A content that is no longer referenced is purged from the PhotoStore after a grace period.
+ */
+@Setter
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "photo_content")
+public class PhotoContent {
+    @Id
+    @Column(name = "content_key", length = 64)
+    private String key;
+
+    private long contentLength;
+
+    @Column(name = "ref_count")
+    private int refCount;
+
+    /**
+     * Moment the last reference was released, null while the content is referenced.
+     */
+    @Column(name = "released_at")
+    private LocalDateTime releasedAt;
+}
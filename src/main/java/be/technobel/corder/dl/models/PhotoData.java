@@ -0,0 +1,22 @@
+package be.technobel.corder.dl.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Photo bytes stored in the database by the DatabasePhotoStore, keyed by their SHA-256 digest.
+ */
+@Setter
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "photo_data")
+public class PhotoData {
+    @Id
+    @Column(name = "content_key", length = 64)
+    private String key;
+
+    private byte[] data;
+}
@@ -0,0 +1,40 @@
+package be.technobel.corder.dl.models;
+
+import be.technobel.corder.dl.models.enums.ThumbnailSize;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A thumbnail of a stored photo. Thumbnails are attached to the content key of the original rather than to a participation,
+ * so identical photos share their thumbnails. The thumbnail bytes are kept by the PhotoStore like any photo.
+ */
+@Setter
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "photo_thumbnail", uniqueConstraints = @UniqueConstraint(name = "uk_photo_thumbnail_source_size", columnNames = {"source_key", "thumbnail_size"}))
+public class PhotoThumbnail {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    /**
+     * Key of the original photo in the PhotoStore.
+     */
+    @Column(name = "source_key", length = 64, nullable = false)
+    private String sourceKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "thumbnail_size", nullable = false)
+    private ThumbnailSize thumbnailSize;
+
+    /**
+     * Key of the thumbnail bytes in the PhotoStore.
+     */
+    @Column(name = "storage_key", length = 64)
+    private String storageKey;
+
+    private long contentLength;
+}
@@ -0,0 +1,30 @@
+package be.technobel.corder.dl.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A validated participation reserved by a logistics operator until it is shipped or until the lease expires.
+ * Claims live in their own table, so claiming never rewrites the participation rows.
+ */
+@Setter
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "shipment_claim", indexes = @Index(name = "idx_shipment_claim_expires_at", columnList = "expires_at"))
+public class ShipmentClaim {
+    @Id
+    @Column(name = "participation_id")
+    private Long participationId;
+
+    private String operator;
+
+    private LocalDateTime claimedAt;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+}
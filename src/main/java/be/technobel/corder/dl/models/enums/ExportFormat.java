@@ -0,0 +1,42 @@
+package be.technobel.corder.dl.models.enums;
+
+/**
+ * The formats of the participation export.
+ */
+public enum ExportFormat {
+    /**
+     * One JSON object per line.
+     */
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @param name the name of the format, ignoring case
+     * @return the format with that name
+     * @throws IllegalArgumentException if no format has that name
+     */
+    public static ExportFormat of(String name) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Format d'export invalide: " + name + ", formats disponibles: ndjson, csv");
+    }
+}
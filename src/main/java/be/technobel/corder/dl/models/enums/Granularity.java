@@ -0,0 +1,52 @@
+package be.technobel.corder.dl.models.enums;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * The length of the periods of a time series. Weeks start on monday.
+ */
+public enum Granularity {
+    DAY,
+    WEEK,
+    MONTH;
+
+    /**
+     * @param day a day
+     * @return the first day of the period containing the day
+     */
+    public LocalDate periodStart(LocalDate day) {
+        return switch (this) {
+            case DAY -> day;
+            case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> day.withDayOfMonth(1);
+        };
+    }
+
+    /**
+     * @param periodStart the first day of a period
+     * @return the first day of the next period
+     */
+    public LocalDate nextPeriod(LocalDate periodStart) {
+        return switch (this) {
+            case DAY -> periodStart.plusDays(1);
+            case WEEK -> periodStart.plusWeeks(1);
+            case MONTH -> periodStart.plusMonths(1);
+        };
+    }
+
+    /**
+     * @param name the name of the granularity, ignoring case
+     * @return the granularity with that name
+     * @throws IllegalArgumentException if no granularity has that name
+     */
+    public static Granularity of(String name) {
+        for (Granularity granularity : values()) {
+            if (granularity.name().equalsIgnoreCase(name)) {
+                return granularity;
+            }
+        }
+        throw new IllegalArgumentException("Granularité invalide: " + name + ", granularités disponibles: day, week, month");
+    }
+}
@@ -0,0 +1,8 @@
+package be.technobel.corder.dl.models.enums;
+
+public enum MailStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    DEAD
+}
@@ -0,0 +1,89 @@
+package be.technobel.corder.dl.models.enums;
+
+/**
+ * The Belgian provinces and the Brussels-Capital Region, in the order they are displayed.
+ * Post codes are mapped to their province through a lookup table built once, indexed by post code.
+ */
+public enum Province {
+    BRABANT_WALLON("Brabant Wallon"),
+    LIEGE("Liège"),
+    NAMUR("Namur"),
+    HAINAUT("Hainaut"),
+    LUXEMBOURG("Luxembourg"),
+    BRUXELLES("Bruxelles"),
+    BRABANT_FLAMAND("Brabant Flamand"),
+    ANVERS("Anvers"),
+    LIMBOURG("Limbourg"),
+    FLANDRE_OCCIDENTALE("Flandre Occidentale"),
+    FLANDRE_ORIENTALE("Flandre Orientale");
+
+    /**
+     * Belgian post codes have four digits.
+     */
+    private static final int POST_CODES = 10_000;
+
+    /**
+     * The ordinal of the province of each post code plus one, 0 when no province uses the post code.
+     */
+    private static final byte[] BY_POST_CODE = new byte[POST_CODES];
+
+    private static final Province[] VALUES = values();
+
+    static {
+        assign(1000, 1299, BRUXELLES);
+        assign(1300, 1499, BRABANT_WALLON);
+        assign(1500, 1999, BRABANT_FLAMAND);
+        assign(2000, 2999, ANVERS);
+        assign(3000, 3499, BRABANT_FLAMAND);
+        assign(3500, 3999, LIMBOURG);
+        assign(4000, 4999, LIEGE);
+        assign(5000, 5999, NAMUR);
+        assign(6000, 6599, HAINAUT);
+        assign(6600, 6999, LUXEMBOURG);
+        assign(7000, 7999, HAINAUT);
+        assign(8000, 8999, FLANDRE_OCCIDENTALE);
+        assign(9000, 9999, FLANDRE_ORIENTALE);
+    }
+
+    private final String label;
+
+    Province(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    private static void assign(int from, int to, Province province) {
+        for (int postCode = from; postCode <= to; postCode++) {
+            BY_POST_CODE[postCode] = (byte) (province.ordinal() + 1);
+        }
+    }
+
+    /**
+     * @param postCode a post code
+     * @return the province of the post code, or null when it is not a Belgian post code
+     */
+    public static Province ofPostCode(Integer postCode) {
+        if (postCode == null || postCode < 0 || postCode >= POST_CODES) {
+            return null;
+        }
+        int index = BY_POST_CODE[postCode];
+        return index == 0 ? null : VALUES[index - 1];
+    }
+
+    /**
+     * @param name the name or the label of a province, ignoring case
+     * @return the province
+     * @throws IllegalArgumentException if no province has that name or label
+     */
+    public static Province of(String name) {
+        for (Province province : VALUES) {
+            if (province.name().equalsIgnoreCase(name) || province.label.equalsIgnoreCase(name)) {
+                return province;
+            }
+        }
+        throw new IllegalArgumentException("Province invalide: " + name);
+    }
+}
@@ -1,8 +1,41 @@
 package be.technobel.corder.dl.models.enums;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum Status {
     PENDING,
     VALIDATED,
     DENIED,
-    SHIPPED
+    SHIPPED;
+
+    /**
+     * The statuses a participation may have to be moved to each status. A participation is created PENDING,
+     * then validated or denied, and only a validated participation is shipped. Nothing leaves DENIED or SHIPPED.
+     */
+    private static final Map<Status, Set<Status>> SOURCES = new EnumMap<>(Status.class);
+
+    static {
+        SOURCES.put(PENDING, EnumSet.noneOf(Status.class));
+        SOURCES.put(VALIDATED, EnumSet.of(PENDING));
+        SOURCES.put(DENIED, EnumSet.of(PENDING, VALIDATED));
+        SOURCES.put(SHIPPED, EnumSet.of(VALIDATED));
+    }
+
+    /**
+     * @return the statuses a participation may be moved to this status from, empty when it cannot be set by a transition
+     */
+    public Set<Status> sources() {
+        return EnumSet.copyOf(SOURCES.get(this));
+    }
+
+    /**
+     * @param target a status
+     * @return true when a participation with this status may be moved to the target status
+     */
+    public boolean canMoveTo(Status target) {
+        return SOURCES.get(target).contains(this);
+    }
 }
@@ -0,0 +1,33 @@
+package be.technobel.corder.dl.models.enums;
+
+/**
+ * The thumbnail sizes generated for each photo, in pixels of the longest side.
+ */
+public enum ThumbnailSize {
+    SMALL(128),
+    LARGE(512);
+
+    private final int pixels;
+
+    ThumbnailSize(int pixels) {
+        this.pixels = pixels;
+    }
+
+    public int getPixels() {
+        return pixels;
+    }
+
+    /**
+     * @param pixels the longest side of the thumbnail
+     * @return the thumbnail size with that many pixels
+     * @throws IllegalArgumentException if no thumbnail has that size
+     */
+    public static ThumbnailSize ofPixels(int pixels) {
+        for (ThumbnailSize size : values()) {
+            if (size.pixels == pixels) {
+                return size;
+            }
+        }
+        throw new IllegalArgumentException("Taille de miniature invalide: " + pixels + ", tailles disponibles: 128, 512");
+    }
+}
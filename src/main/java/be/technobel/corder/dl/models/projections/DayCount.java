@@ -0,0 +1,9 @@
+package be.technobel.corder.dl.models.projections;
+
+import java.time.LocalDate;
+
+/**
+ * The number of participations of a day.
+ */
+public record DayCount(LocalDate day, Long count) {
+}
@@ -0,0 +1,7 @@
+package be.technobel.corder.dl.models.projections;
+
+/**
+ * The number of participations sharing a numeric value, as returned by a GROUP BY query.
+ */
+public record NumberCount(Integer value, Long count) {
+}
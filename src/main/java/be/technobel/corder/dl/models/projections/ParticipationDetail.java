@@ -0,0 +1,22 @@
+package be.technobel.corder.dl.models.projections;
+
+import be.technobel.corder.dl.models.enums.Status;
+
+/**
+ * The columns of a participation shown on its detail page, read with its address in a single query.
+ */
+public record ParticipationDetail(
+        Long id,
+        String firstName,
+        String lastName,
+        String email,
+        String street,
+        String city,
+        Integer postCode,
+        Status status,
+        String productType,
+        boolean acceptNewsletter,
+        boolean acceptExposure,
+        long version
+) {
+}
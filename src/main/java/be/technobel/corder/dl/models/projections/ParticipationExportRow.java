@@ -0,0 +1,24 @@
+package be.technobel.corder.dl.models.projections;
+
+import be.technobel.corder.dl.models.enums.Status;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a participation in the export, read with its address.
+ */
+public record ParticipationExportRow(
+        Long id,
+        LocalDate participationDate,
+        String firstName,
+        String lastName,
+        String email,
+        String street,
+        String city,
+        Integer postCode,
+        String productType,
+        Status status,
+        LocalDateTime statusUpdateDate
+) {
+}
@@ -0,0 +1,13 @@
+package be.technobel.corder.dl.models.projections;
+
+/**
+ * Normalized duplicate-detection keys of an existing participation.
+ *
+ * @param emailKey   the normalized email
+ * @param addressKey the normalized address
+ */
+public record ParticipationKeys(
+        String emailKey,
+        String addressKey
+) {
+}
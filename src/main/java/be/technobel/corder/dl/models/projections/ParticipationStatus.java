@@ -0,0 +1,9 @@
+package be.technobel.corder.dl.models.projections;
+
+import be.technobel.corder.dl.models.enums.Status;
+
+/**
+ * The current status and version of a participation.
+ */
+public record ParticipationStatus(Long id, Status status, long version) {
+}
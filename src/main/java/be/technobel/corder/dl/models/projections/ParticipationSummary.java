@@ -0,0 +1,21 @@
+package be.technobel.corder.dl.models.projections;
+
+import be.technobel.corder.dl.models.enums.Status;
+
+import java.time.LocalDate;
+
+/**
+ * The columns of a participation shown in the list of participations, read with its address in a single query.
+ */
+public record ParticipationSummary(
+        Long id,
+        String lastName,
+        String firstName,
+        LocalDate participationDate,
+        String street,
+        String city,
+        Integer postCode,
+        String productType,
+        Status status
+) {
+}
@@ -0,0 +1,7 @@
+package be.technobel.corder.dl.models.projections;
+
+/**
+ * The content key of the photo of a participation.
+ */
+public record PhotoUsage(Long participationId, String storageKey) {
+}
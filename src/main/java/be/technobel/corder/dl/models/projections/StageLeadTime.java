@@ -0,0 +1,16 @@
+package be.technobel.corder.dl.models.projections;
+
+import be.technobel.corder.dl.models.enums.Status;
+
+/**
+ * The percentiles of the time participations spent in a status before moving to another one, in seconds.
+ */
+public record StageLeadTime(
+        Status fromStatus,
+        Status toStatus,
+        long transitions,
+        double p50Seconds,
+        double p90Seconds,
+        double p99Seconds
+) {
+}
@@ -0,0 +1,19 @@
+package be.technobel.corder.dl.models.projections;
+
+import be.technobel.corder.dl.models.enums.Status;
+
+import java.time.LocalDate;
+
+/**
+ * The number of participations sharing the values the statistics buckets are computed from.
+ */
+public record StatSource(
+        LocalDate day,
+        Integer postCode,
+        String productType,
+        Integer satisfaction,
+        String satisfactionComment,
+        Status status,
+        Long count
+) {
+}
@@ -0,0 +1,19 @@
+package be.technobel.corder.dl.models.projections;
+
+import be.technobel.corder.dl.models.enums.Status;
+
+import java.time.LocalDate;
+
+/**
+ * A participation whose status has just been changed, with its previous status and the values its statistics bucket is computed from.
+ */
+public record StatusTransition(
+        Long id,
+        Status previousStatus,
+        LocalDate participationDate,
+        Integer postCode,
+        String productType,
+        int satisfaction,
+        String satisfactionComment
+) {
+}
@@ -0,0 +1,34 @@
+package be.technobel.corder.dl.repositories;
+
+import be.technobel.corder.dl.models.OutboxMail;
+import be.technobel.corder.dl.models.enums.MailStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxMailRepository extends JpaRepository<OutboxMail, Long> {
+
+    /**
+     * Claims the due mails by switching them to SENDING with a lease, skipping the rows already locked by another instance.
+     * A SENDING mail whose lease expired, for example because its worker died, is claimed again.
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE mail_outbox SET status = 'SENDING', next_attempt_at = :leaseUntil
+            WHERE id IN (
+                SELECT id FROM mail_outbox
+                WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= :now
+                ORDER BY next_attempt_at
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING id
+            """, nativeQuery = true)
+    List<Long> claimDue(@Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil, @Param("limit") int limit);
+
+    Long countByStatus(MailStatus status);
+}
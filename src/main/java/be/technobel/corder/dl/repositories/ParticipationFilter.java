@@ -0,0 +1,27 @@
+package be.technobel.corder.dl.repositories;
+
+import be.technobel.corder.dl.models.enums.Status;
+import lombok.Builder;
+
+import java.time.LocalDate;
+
+/**
+ * The optional criteria of a participation listing, a null criterion does not filter anything. Bounds are included.
+ */
+@Builder
+public record ParticipationFilter(
+        Status status,
+        LocalDate fromDate,
+        LocalDate toDate,
+        Integer minPostCode,
+        Integer maxPostCode,
+        String productType
+) {
+
+    /**
+     * @return true when no criterion is set, the filter then matches every participation
+     */
+    public boolean isEmpty() {
+        return status == null && fromDate == null && toDate == null && minPostCode == null && maxPostCode == null && productType == null;
+    }
+}
@@ -0,0 +1,24 @@
+package be.technobel.corder.dl.repositories;
+
+import be.technobel.corder.dl.models.ParticipationPhoto;
+import be.technobel.corder.dl.models.projections.PhotoUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface ParticipationPhotoRepository extends JpaRepository<ParticipationPhoto, Long> {
+
+    /**
+     * Finds the photos whose content is shared by several participations, grouped by content key.
+     */
+    @Query("""
+            SELECT new be.technobel.corder.dl.models.projections.PhotoUsage(p.id, p.storageKey)
+            FROM ParticipationPhoto p
+            WHERE p.storageKey IN (SELECT q.storageKey FROM ParticipationPhoto q GROUP BY q.storageKey HAVING COUNT(q) > 1)
+            ORDER BY p.storageKey, p.id
+            """)
+    List<PhotoUsage> findSharedPhotos();
+
+    long countByStorageKey(String storageKey);
+}
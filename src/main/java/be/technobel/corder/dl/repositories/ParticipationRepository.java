@@ -2,32 +2,65 @@ package be.technobel.corder.dl.repositories;
 
 import be.technobel.corder.dl.models.Participation;
 import be.technobel.corder.dl.models.enums.Status;
+import be.technobel.corder.dl.models.projections.ParticipationDetail;
+import be.technobel.corder.dl.models.projections.ParticipationExportRow;
+import be.technobel.corder.dl.models.projections.ParticipationKeys;
+import be.technobel.corder.dl.models.projections.ParticipationStatus;
+import be.technobel.corder.dl.models.projections.ParticipationSummary;
+import be.technobel.corder.dl.models.projections.StatSource;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface ParticipationRepository extends JpaRepository<Participation, Long> {
-    Long countParticipationsByParticipationDate(LocalDate participationDate);
-
+public interface ParticipationRepository extends JpaRepository<Participation, Long>, ParticipationRepositoryCustom {
     Long countAllByIdIsNotNull();
 
-    Long countAllByParticipationDateBetween(LocalDate startDate, LocalDate endDate);
+    @Query("SELECT p.id FROM Participation p WHERE p.status = :status ORDER BY p.statusUpdateDate DESC")
+    List<Long> findIdsByStatusOrderByStatusUpdateDateDesc(@Param("status") Status status, Pageable pageable);
 
-    Long countParticipationByAddress_PostCodeBetween(int address_startPostCode, int address_endPostCode);
+    @Query("SELECT new be.technobel.corder.dl.models.projections.ParticipationDetail(p.id, p.firstName, p.lastName, p.email, a.street, a.city, a.postCode, p.status, p.productType, p.acceptNewsletter, p.acceptExposure, p.version) " +
+            "FROM Participation p LEFT JOIN p.address a WHERE p.id = :id")
+    Optional<ParticipationDetail> findDetailById(@Param("id") Long id);
 
-    Long countParticipationByProductType(String productType);
+    @Query("SELECT new be.technobel.corder.dl.models.projections.ParticipationStatus(p.id, p.status, p.version) FROM Participation p WHERE p.id IN :ids")
+    List<ParticipationStatus> findStatusesByIdIn(@Param("ids") Collection<Long> ids);
 
-    List<Participation> findAllByProductTypeNotIn(Collection<String> productType);
+    @Query("SELECT new be.technobel.corder.dl.models.projections.ParticipationSummary(p.id, p.lastName, p.firstName, p.participationDate, a.street, a.city, a.postCode, p.productType, p.status) " +
+            "FROM Participation p LEFT JOIN p.address a WHERE p.id IN :ids ORDER BY p.participationDate, p.id")
+    List<ParticipationSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
 
-    Long countParticipationBySatisfaction(int satisfaction);
+    Participation findByEmail(String email);
 
-    Long countParticipationBySatisfactionCommentIgnoreCase(String satisfactionComment);
+    @Query("SELECT new be.technobel.corder.dl.models.projections.ParticipationKeys(p.emailKey, p.addressKey) " +
+            "FROM Participation p WHERE p.emailKey = :emailKey OR p.addressKey = :addressKey")
+    List<ParticipationKeys> findKeysByEmailKeyOrAddressKey(@Param("emailKey") String emailKey, @Param("addressKey") String addressKey);
 
-    List<Participation> findAllBySatisfactionCommentNotIn(Collection<String> satisfactionComment);
+    @Query("SELECT new be.technobel.corder.dl.models.projections.StatSource(p.participationDate, a.postCode, p.productType, p.satisfaction, p.satisfactionComment, p.status, COUNT(p)) " +
+            "FROM Participation p LEFT JOIN p.address a " +
+            "GROUP BY p.participationDate, a.postCode, p.productType, p.satisfaction, p.satisfactionComment, p.status")
+    List<StatSource> countStatSources();
 
-    Collection<Participation> findTop3ByStatusOrderByStatusUpdateDateDesc(Status status);
+    /**
+     * Streams the participations with the given status, or all of them, fetching the rows from the database by batches
+     * through a cursor. Must be consumed and closed within a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new be.technobel.corder.dl.models.projections.ParticipationExportRow(p.id, p.participationDate, p.firstName, p.lastName, p.email, a.street, a.city, a.postCode, p.productType, p.status, p.statusUpdateDate) " +
+            "FROM Participation p LEFT JOIN p.address a WHERE (:status IS NULL OR p.status = :status) ORDER BY p.id")
+    Stream<ParticipationExportRow> streamExportRows(@Param("status") Status status);
 
-    Participation findByEmail(String email);
-}
\ No newline at end of file
+    @Query("SELECT p.satisfactionComment FROM Participation p WHERE p.satisfactionComment NOT IN :satisfactionComments")
+    List<String> findSatisfactionCommentsNotIn(@Param("satisfactionComments") Collection<String> satisfactionComments);
+}
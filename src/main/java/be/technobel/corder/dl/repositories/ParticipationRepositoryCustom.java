@@ -0,0 +1,48 @@
+package be.technobel.corder.dl.repositories;
+
+import be.technobel.corder.dl.models.enums.Status;
+import be.technobel.corder.dl.models.projections.ParticipationSummary;
+import be.technobel.corder.dl.models.projections.StatusTransition;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ParticipationRepositoryCustom {
+
+    /**
+     * Reads a page of participation summaries, from the most recent participation date and the highest id.
+     * Only the given criteria are part of the query, so each one can be served by its index.
+     *
+     * @param filter    the criteria of the participations
+     * @param afterDate the participation date of the last summary of the previous page, or null for the first page
+     * @param afterId   the id of the last summary of the previous page, or null for the first page
+     * @param limit     the maximum number of summaries
+     * @return the summaries following the given position
+     */
+    List<ParticipationSummary> findSummaries(ParticipationFilter filter, LocalDate afterDate, Long afterId, int limit);
+
+    /**
+     * Reads the ids of the participations matching the criteria, from the most recent participation date and the highest id.
+     *
+     * @param filter the criteria of the participations
+     * @param limit  the maximum number of ids
+     * @return the ids of the matching participations
+     */
+    List<Long> findIds(ParticipationFilter filter, int limit);
+
+    /**
+     * Sets the status and the status update date of the given participations and increments their version in a single
+     * UPDATE statement, skipping the ones whose current status is not one of the allowed ones or whose version is not the expected one.
+     * The transitions are appended to the status history by the same statement.
+     *
+     * @param ids     the ids of the participations
+     * @param sources the statuses the participations may currently have
+     * @param status  the new status
+     * @param version the version the participations must currently have, or null for any version
+     * @param now     the status update date
+     * @return the participations that were updated, with their previous status
+     */
+    List<StatusTransition> updateStatus(Collection<Long> ids, Collection<Status> sources, Status status, Long version, LocalDateTime now);
+}
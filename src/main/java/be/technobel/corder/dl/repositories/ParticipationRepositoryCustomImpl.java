@@ -0,0 +1,160 @@
+package be.technobel.corder.dl.repositories;
+
+import be.technobel.corder.dl.models.Address;
+import be.technobel.corder.dl.models.Participation;
+import be.technobel.corder.dl.models.enums.Status;
+import be.technobel.corder.dl.models.projections.ParticipationSummary;
+import be.technobel.corder.dl.models.projections.StatusTransition;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.*;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StandardBasicTypes;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class ParticipationRepositoryCustomImpl implements ParticipationRepositoryCustom {
+
+    /**
+     * Compare-and-set on the status: no row is locked beforehand, a participation is only updated when its status is
+     * still the one read, which PostgreSQL checks again on the latest version of the row. A participation changed
+     * concurrently is skipped, like a participation whose status does not allow the change.
+     * The same statement appends the transitions to the status history, one row per updated participation,
+     * so the history costs no additional round trip and is never out of step with the statuses.
+     */
+    private static final String UPDATE_STATUS = """
+            WITH target AS (
+                SELECT p.id, p.status, p.address_id FROM participation p
+                WHERE p.id IN (:ids) AND p.status IN (:sources)
+            ), updated AS (
+                UPDATE participation p
+                SET status = :status, status_update_date = :now, version = p.version + 1
+                FROM target t LEFT JOIN address a ON a.address_id = t.address_id
+                WHERE p.id = t.id AND p.status = t.status
+                  AND (CAST(:version AS bigint) IS NULL OR p.version = :version)
+                RETURNING p.id AS id, t.status AS previous_status, p.participation_date AS participation_date,
+                          a.post_code AS post_code, p.product_type AS product_type, p.satisfaction AS satisfaction,
+                          p.satisfaction_comment AS satisfaction_comment
+            ), logged AS (
+                INSERT INTO participation_status_event (participation_id, from_status, to_status, occurred_at)
+                SELECT id, previous_status, :status, :now FROM updated
+            )
+            SELECT * FROM updated
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ParticipationSummary> findSummaries(ParticipationFilter filter, LocalDate afterDate, Long afterId, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ParticipationSummary> query = builder.createQuery(ParticipationSummary.class);
+        Root<Participation> participation = query.from(Participation.class);
+        Join<Participation, Address> address = participation.join("address", JoinType.LEFT);
+        Path<LocalDate> participationDate = participation.get("participationDate");
+        Path<Long> id = participation.get("id");
+
+        List<Predicate> where = predicatesOf(builder, participation, address, filter);
+        if (afterDate != null && afterId != null) {
+            // the first condition alone bounds the index scan, the second one skips the rows of the same day already read
+            where.add(builder.lessThanOrEqualTo(participationDate, afterDate));
+            where.add(builder.or(
+                    builder.lessThan(participationDate, afterDate),
+                    builder.and(builder.equal(participationDate, afterDate), builder.lessThan(id, afterId))
+            ));
+        }
+
+        query.select(builder.construct(
+                        ParticipationSummary.class,
+                        id,
+                        participation.get("lastName"),
+                        participation.get("firstName"),
+                        participationDate,
+                        address.get("street"),
+                        address.get("city"),
+                        address.get("postCode"),
+                        participation.get("productType"),
+                        participation.get("status")
+                ))
+                .where(where.toArray(Predicate[]::new))
+                .orderBy(builder.desc(participationDate), builder.desc(id));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<Long> findIds(ParticipationFilter filter, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<Participation> participation = query.from(Participation.class);
+        Join<Participation, Address> address = participation.join("address", JoinType.LEFT);
+        Path<Long> id = participation.get("id");
+
+        query.select(id)
+                .where(predicatesOf(builder, participation, address, filter).toArray(Predicate[]::new))
+                .orderBy(builder.desc(participation.get("participationDate")), builder.desc(id));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<StatusTransition> updateStatus(Collection<Long> ids, Collection<Status> sources, Status status, Long version, LocalDateTime now) {
+        List<Object[]> rows = entityManager.createNativeQuery(UPDATE_STATUS)
+                .unwrap(NativeQuery.class)
+                .setParameter("ids", ids)
+                .setParameter("sources", sources.stream().map(Status::name).toList())
+                .setParameter("status", status.name())
+                .setParameter("version", version, StandardBasicTypes.LONG)
+                .setParameter("now", now)
+                .addScalar("id", Long.class)
+                .addScalar("previous_status", String.class)
+                .addScalar("participation_date", LocalDate.class)
+                .addScalar("post_code", Integer.class)
+                .addScalar("product_type", String.class)
+                .addScalar("satisfaction", Integer.class)
+                .addScalar("satisfaction_comment", String.class)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new StatusTransition(
+                        (Long) row[0],
+                        Status.valueOf((String) row[1]),
+                        (LocalDate) row[2],
+                        (Integer) row[3],
+                        (String) row[4],
+                        (Integer) row[5],
+                        (String) row[6]
+                ))
+                .toList();
+    }
+
+    private List<Predicate> predicatesOf(CriteriaBuilder builder, Root<Participation> participation, Join<Participation, Address> address, ParticipationFilter filter) {
+        Path<LocalDate> participationDate = participation.get("participationDate");
+        List<Predicate> where = new ArrayList<>();
+        if (filter.status() != null) {
+            where.add(builder.equal(participation.get("status"), filter.status()));
+        }
+        if (filter.fromDate() != null) {
+            where.add(builder.greaterThanOrEqualTo(participationDate, filter.fromDate()));
+        }
+        if (filter.toDate() != null) {
+            where.add(builder.lessThanOrEqualTo(participationDate, filter.toDate()));
+        }
+        if (filter.minPostCode() != null) {
+            where.add(builder.greaterThanOrEqualTo(address.get("postCode"), filter.minPostCode()));
+        }
+        if (filter.maxPostCode() != null) {
+            where.add(builder.lessThanOrEqualTo(address.get("postCode"), filter.maxPostCode()));
+        }
+        if (filter.productType() != null) {
+            where.add(builder.equal(participation.get("productType"), filter.productType()));
+        }
+        return where;
+    }
+}
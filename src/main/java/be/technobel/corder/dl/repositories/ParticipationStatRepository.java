@@ -0,0 +1,89 @@
+package be.technobel.corder.dl.repositories;
+
+import be.technobel.corder.dl.models.ParticipationStat;
+import be.technobel.corder.dl.models.ParticipationStatKey;
+import be.technobel.corder.dl.models.enums.Status;
+import be.technobel.corder.dl.models.projections.DayCount;
+import be.technobel.corder.dl.models.projections.KeyCount;
+import be.technobel.corder.dl.models.projections.NumberCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface ParticipationStatRepository extends JpaRepository<ParticipationStat, ParticipationStatKey> {
+
+    /**
+     * Adds delta participations to a bucket, creating it if needed.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO participation_stat (day, province, product_type, satisfaction, comment_category, status, participations)
+            VALUES (:day, :province, :productType, :satisfaction, :commentCategory, :status, :delta)
+            ON CONFLICT (day, province, product_type, satisfaction, comment_category, status)
+            DO UPDATE SET participations = participation_stat.participations + EXCLUDED.participations
+            """, nativeQuery = true)
+    void increment(
+            @Param("day") LocalDate day,
+            @Param("province") String province,
+            @Param("productType") String productType,
+            @Param("satisfaction") int satisfaction,
+            @Param("commentCategory") String commentCategory,
+            @Param("status") String status,
+            @Param("delta") long delta
+    );
+
+    /**
+     * Blocks the writers until the end of the transaction, while the table is rebuilt.
+     */
+    @Modifying
+    @Query(value = "LOCK TABLE participation_stat IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockTable();
+
+    /**
+     * Tells whether rows were counted under a province that is no longer a province name, before the names were normalized.
+     */
+    @Query("SELECT COUNT(s) > 0 FROM ParticipationStat s WHERE s.key.province <> '' AND s.key.province NOT IN :provinces")
+    boolean existsByProvinceNotIn(@Param("provinces") Collection<String> provinces);
+
+    @Query("SELECT COALESCE(SUM(s.participations), 0) FROM ParticipationStat s")
+    Long countParticipations();
+
+    /**
+     * Counts the participations of each day of a range, optionally restricted to a status, a province or a product type.
+     * Days without participation are not returned.
+     */
+    @Query("SELECT new be.technobel.corder.dl.models.projections.DayCount(s.key.day, SUM(s.participations)) " +
+            "FROM ParticipationStat s WHERE s.key.day BETWEEN :startDate AND :endDate " +
+            "AND (:status IS NULL OR s.key.status = :status) " +
+            "AND (:province IS NULL OR s.key.province = :province) " +
+            "AND (:productType IS NULL OR s.key.productType = :productType) " +
+            "GROUP BY s.key.day HAVING SUM(s.participations) > 0")
+    List<DayCount> countByDayBetween(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("status") Status status,
+            @Param("province") String province,
+            @Param("productType") String productType
+    );
+
+    @Query("SELECT new be.technobel.corder.dl.models.projections.KeyCount(s.key.province, SUM(s.participations)) " +
+            "FROM ParticipationStat s GROUP BY s.key.province HAVING SUM(s.participations) > 0")
+    List<KeyCount> countByProvince();
+
+    @Query("SELECT new be.technobel.corder.dl.models.projections.KeyCount(s.key.productType, SUM(s.participations)) " +
+            "FROM ParticipationStat s GROUP BY s.key.productType HAVING SUM(s.participations) > 0")
+    List<KeyCount> countByProductType();
+
+    @Query("SELECT new be.technobel.corder.dl.models.projections.NumberCount(s.key.satisfaction, SUM(s.participations)) " +
+            "FROM ParticipationStat s GROUP BY s.key.satisfaction HAVING SUM(s.participations) > 0")
+    List<NumberCount> countBySatisfaction();
+
+    @Query("SELECT new be.technobel.corder.dl.models.projections.KeyCount(s.key.commentCategory, SUM(s.participations)) " +
+            "FROM ParticipationStat s GROUP BY s.key.commentCategory HAVING SUM(s.participations) > 0")
+    List<KeyCount> countByCommentCategory();
+}
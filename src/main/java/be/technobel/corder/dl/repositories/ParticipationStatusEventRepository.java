@@ -0,0 +1,7 @@
+package be.technobel.corder.dl.repositories;
+
+import be.technobel.corder.dl.models.ParticipationStatusEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ParticipationStatusEventRepository extends JpaRepository<ParticipationStatusEvent, Long>, ParticipationStatusEventRepositoryCustom {
+}
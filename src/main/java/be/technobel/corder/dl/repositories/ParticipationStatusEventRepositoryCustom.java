@@ -0,0 +1,19 @@
+package be.technobel.corder.dl.repositories;
+
+import be.technobel.corder.dl.models.projections.StageLeadTime;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ParticipationStatusEventRepositoryCustom {
+
+    /**
+     * Computes, for each transition, the percentiles of the time between the moment a participation entered the status
+     * it left and the transition, in a single grouped query. Transitions out of a status whose entry is not logged are ignored.
+     *
+     * @param from the first moment of the transitions, included
+     * @param to   the last moment of the transitions, excluded
+     * @return the lead times of the transitions that happened in the range
+     */
+    List<StageLeadTime> findLeadTimes(LocalDateTime from, LocalDateTime to);
+}
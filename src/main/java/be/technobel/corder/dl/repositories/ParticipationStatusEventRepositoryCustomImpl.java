@@ -0,0 +1,66 @@
+package be.technobel.corder.dl.repositories;
+
+import be.technobel.corder.dl.models.enums.Status;
+import be.technobel.corder.dl.models.projections.StageLeadTime;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class ParticipationStatusEventRepositoryCustomImpl implements ParticipationStatusEventRepositoryCustom {
+
+    /**
+     * The moment a participation entered the status it leaves is the latest earlier event into that status,
+     * found through the (participation_id, occurred_at) index.
+     */
+    private static final String LEAD_TIMES = """
+            SELECT from_status, to_status, COUNT(*) AS transitions,
+                   percentile_cont(0.5) WITHIN GROUP (ORDER BY lead_time) AS p50,
+                   percentile_cont(0.9) WITHIN GROUP (ORDER BY lead_time) AS p90,
+                   percentile_cont(0.99) WITHIN GROUP (ORDER BY lead_time) AS p99
+            FROM (
+                SELECT e.from_status, e.to_status, CAST(EXTRACT(EPOCH FROM e.occurred_at - entered.occurred_at) AS double precision) AS lead_time
+                FROM participation_status_event e
+                JOIN LATERAL (
+                    SELECT s.occurred_at FROM participation_status_event s
+                    WHERE s.participation_id = e.participation_id AND s.to_status = e.from_status AND s.occurred_at <= e.occurred_at
+                    ORDER BY s.occurred_at DESC
+                    LIMIT 1
+                ) entered ON TRUE
+                WHERE e.from_status IS NOT NULL AND e.occurred_at >= :from AND e.occurred_at < :to
+            ) lead_times
+            GROUP BY from_status, to_status
+            ORDER BY from_status, to_status
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<StageLeadTime> findLeadTimes(LocalDateTime from, LocalDateTime to) {
+        List<Object[]> rows = entityManager.createNativeQuery(LEAD_TIMES)
+                .unwrap(NativeQuery.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .addScalar("from_status", String.class)
+                .addScalar("to_status", String.class)
+                .addScalar("transitions", Long.class)
+                .addScalar("p50", Double.class)
+                .addScalar("p90", Double.class)
+                .addScalar("p99", Double.class)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new StageLeadTime(
+                        Status.valueOf((String) row[0]),
+                        Status.valueOf((String) row[1]),
+                        (Long) row[2],
+                        (Double) row[3],
+                        (Double) row[4],
+                        (Double) row[5]
+                ))
+                .toList();
+    }
+}
@@ -0,0 +1,54 @@
+package be.technobel.corder.dl.repositories;
+
+import be.technobel.corder.dl.models.PhotoContent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface PhotoContentRepository extends JpaRepository<PhotoContent, String> {
+
+    /**
+     * Adds a reference to a content, creating it if needed. The row stays locked until the end of the transaction,
+     * so the content cannot be purged meanwhile.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO photo_content (content_key, content_length, ref_count)
+            VALUES (:key, :contentLength, 1)
+            ON CONFLICT (content_key) DO UPDATE SET ref_count = photo_content.ref_count + 1, released_at = NULL
+            """, nativeQuery = true)
+    void acquire(@Param("key") String key, @Param("contentLength") long contentLength);
+
+    /**
+     * Removes a reference to a content, recording when the last one is released.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE photo_content
+            SET ref_count = ref_count - 1, released_at = CASE WHEN ref_count = 1 THEN :now ELSE released_at END
+            WHERE content_key = :key AND ref_count > 0
+            """, nativeQuery = true)
+    void release(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    /**
+     * Deletes the contents released before the cutoff. The rows stay locked until the end of the transaction,
+     * so an upload of the same content waits for the purge and then stores the bytes again.
+     *
+     * @return the keys of the deleted contents
+     */
+    @Query(value = """
+            DELETE FROM photo_content
+            WHERE content_key IN (
+                SELECT content_key FROM photo_content
+                WHERE ref_count = 0 AND released_at < :cutoff
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING content_key
+            """, nativeQuery = true)
+    List<String> deleteReleasedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
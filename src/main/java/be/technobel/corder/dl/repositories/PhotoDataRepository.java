@@ -0,0 +1,7 @@
+package be.technobel.corder.dl.repositories;
+
+import be.technobel.corder.dl.models.PhotoData;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface PhotoDataRepository extends JpaRepository<PhotoData, String> {
+}
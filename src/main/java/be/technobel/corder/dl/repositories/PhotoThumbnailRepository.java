@@ -0,0 +1,16 @@
+package be.technobel.corder.dl.repositories;
+
+import be.technobel.corder.dl.models.PhotoThumbnail;
+import be.technobel.corder.dl.models.enums.ThumbnailSize;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface PhotoThumbnailRepository extends JpaRepository<PhotoThumbnail, Long> {
+    Optional<PhotoThumbnail> findBySourceKeyAndThumbnailSize(String sourceKey, ThumbnailSize thumbnailSize);
+
+    boolean existsBySourceKeyAndThumbnailSize(String sourceKey, ThumbnailSize thumbnailSize);
+
+    List<PhotoThumbnail> findBySourceKey(String sourceKey);
+}
@@ -0,0 +1,58 @@
+package be.technobel.corder.dl.repositories;
+
+import be.technobel.corder.dl.models.ShipmentClaim;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ShipmentClaimRepository extends JpaRepository<ShipmentClaim, Long> {
+
+    /**
+     * Claims the oldest validated participations nobody holds an unexpired claim on, skipping the participations another
+     * operator is claiming at the same moment instead of waiting for them. A participation claimed and committed by
+     * another operator in the meantime is left out by the conflict clause, so no participation is ever claimed twice.
+     */
+    @Transactional
+    @Query(value = """
+            INSERT INTO shipment_claim (participation_id, operator, claimed_at, expires_at)
+            SELECT p.id, :operator, :now, :leaseUntil FROM participation p
+            WHERE p.status = 'VALIDATED'
+              AND NOT EXISTS (SELECT 1 FROM shipment_claim c WHERE c.participation_id = p.id AND c.expires_at > :now)
+            ORDER BY p.participation_date, p.id
+            LIMIT :limit
+            FOR NO KEY UPDATE OF p SKIP LOCKED
+            ON CONFLICT (participation_id) DO UPDATE
+            SET operator = EXCLUDED.operator, claimed_at = EXCLUDED.claimed_at, expires_at = EXCLUDED.expires_at
+            WHERE shipment_claim.expires_at <= :now
+            RETURNING participation_id
+            """, nativeQuery = true)
+    List<Long> claimNext(@Param("operator") String operator, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil, @Param("limit") int limit);
+
+    /**
+     * Deletes the unexpired claims of an operator on the given participations.
+     *
+     * @return the ids of the participations the operator held a claim on
+     */
+    @Query(value = """
+            DELETE FROM shipment_claim
+            WHERE participation_id IN (:ids) AND operator = :operator AND expires_at > :now
+            RETURNING participation_id
+            """, nativeQuery = true)
+    List<Long> deleteActive(@Param("ids") Collection<Long> ids, @Param("operator") String operator, @Param("now") LocalDateTime now);
+
+    /**
+     * Finds the unexpired claims other operators hold on the given participations.
+     */
+    @Query("SELECT c FROM ShipmentClaim c WHERE c.participationId IN :ids AND c.operator <> :operator AND c.expiresAt > :now")
+    List<ShipmentClaim> findActiveHeldByOthers(@Param("ids") Collection<Long> ids, @Param("operator") String operator, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM ShipmentClaim c WHERE c.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
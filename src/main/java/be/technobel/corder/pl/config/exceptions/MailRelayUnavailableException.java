@@ -0,0 +1,9 @@
+package be.technobel.corder.pl.config.exceptions;
+
+import org.springframework.mail.MailSendException;
+
+public class MailRelayUnavailableException extends MailSendException {
+    public MailRelayUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package be.technobel.corder.pl.config.exceptions;
+
+public class PhotoTooLargeException extends RuntimeException {
+
+    public PhotoTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package be.technobel.corder.pl.config.exceptions;
+
+import org.springframework.mail.MailSendException;
+
+public class SmtpPoolExhaustedException extends MailSendException {
+    public SmtpPoolExhaustedException(String message) {
+        super(message);
+    }
+
+    public SmtpPoolExhaustedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
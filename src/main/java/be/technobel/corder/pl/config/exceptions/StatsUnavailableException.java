@@ -0,0 +1,7 @@
+package be.technobel.corder.pl.config.exceptions;
+
+public class StatsUnavailableException extends RuntimeException {
+    public StatsUnavailableException(String message) {
+        super(message);
+    }
+}
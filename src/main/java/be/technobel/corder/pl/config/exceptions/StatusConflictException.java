@@ -0,0 +1,10 @@
+package be.technobel.corder.pl.config.exceptions;
+
+/**
+ * Thrown when the status of a participation cannot be changed because of its current status or version.
+ */
+public class StatusConflictException extends RuntimeException {
+    public StatusConflictException(String message) {
+        super(message);
+    }
+}
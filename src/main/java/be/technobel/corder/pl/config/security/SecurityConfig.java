@@ -52,6 +52,9 @@ public class SecurityConfig {
 
         config.setAllowedHeaders(List.of("*"));
 
+        // cursor of the next page of the participation listing
+        config.setExposedHeaders(List.of("X-Next-Cursor"));
+
         config.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
 
         source.registerCorsConfiguration("/**", config);
@@ -0,0 +1,31 @@
+package be.technobel.corder.pl.controllers;
+
+import be.technobel.corder.bl.mail.TemplateRenderMetrics;
+import be.technobel.corder.bl.services.MailService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * The MailController class exposes the monitoring endpoints of the mail sending.
+ */
+@RestController
+@RequestMapping("/mail")
+public class MailController {
+
+    private final MailService mailService;
+
+    public MailController(MailService mailService) {
+        this.mailService = mailService;
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/templates/metrics")
+    public ResponseEntity<List<TemplateRenderMetrics>> getTemplateMetrics() {
+        return ResponseEntity.ok(mailService.templateMetrics());
+    }
+}
@@ -1,18 +1,33 @@
 package be.technobel.corder.pl.controllers;
 
+import be.technobel.corder.bl.services.ParticipationExportService;
 import be.technobel.corder.bl.services.ParticipationService;
-import be.technobel.corder.dl.models.Participation;
+import be.technobel.corder.dl.models.ParticipationPhoto;
+import be.technobel.corder.dl.models.PhotoThumbnail;
+import be.technobel.corder.dl.models.enums.ExportFormat;
+import be.technobel.corder.dl.models.enums.Granularity;
+import be.technobel.corder.dl.models.enums.Province;
+import be.technobel.corder.dl.models.enums.Status;
+import be.technobel.corder.dl.models.enums.ThumbnailSize;
+import be.technobel.corder.dl.repositories.ParticipationFilter;
 import be.technobel.corder.pl.models.dtos.*;
+import be.technobel.corder.pl.models.forms.BulkTransitionForm;
 import be.technobel.corder.pl.models.forms.ParticipationForm;
 import be.technobel.corder.pl.models.forms.SatisfactionForm;
 import jakarta.validation.Valid;
+import org.springframework.core.io.Resource;
 import org.springframework.http.*;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * The ParticipationController class handles the endpoints related to participations.
@@ -21,10 +36,14 @@ import java.util.List;
 @RequestMapping("/participation")
 public class ParticipationController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final ParticipationService participationService;
+    private final ParticipationExportService participationExportService;
 
-    public ParticipationController(ParticipationService participationService) {
+    public ParticipationController(ParticipationService participationService, ParticipationExportService participationExportService) {
         this.participationService = participationService;
+        this.participationExportService = participationExportService;
     }
 
     @PostMapping("/")
@@ -32,36 +51,144 @@ public class ParticipationController {
         return ResponseEntity.ok(ParticipationDTO.fromEntity(participationService.create(participationForm)));
     }
 
+    /**
+     * Lists the participations from the most recent, one page at a time. The body holds the participations of the page
+     * and the X-Next-Cursor header, absent on the last page, the cursor to pass to get the next one.
+     */
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/")
-    public ResponseEntity<List<ParticipationDTO>> getAllParticipations() {
-        List<ParticipationDTO> participations = participationService.findAll()
-                .stream()
-                .map(ParticipationDTO::fromEntity)
-                .toList();
-        return ResponseEntity.ok(participations);
+    public ResponseEntity<List<ParticipationDTO>> getAllParticipations(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Status status,
+            @RequestParam(required = false) LocalDate fromDate,
+            @RequestParam(required = false) LocalDate toDate,
+            @RequestParam(required = false) Integer minPostCode,
+            @RequestParam(required = false) Integer maxPostCode,
+            @RequestParam(required = false) String productType
+    ) {
+        ParticipationFilter filter = ParticipationFilter.builder()
+                .status(status)
+                .fromDate(fromDate)
+                .toDate(toDate)
+                .minPostCode(minPostCode)
+                .maxPostCode(maxPostCode)
+                .productType(productType)
+                .build();
+        ParticipationPageDTO page = participationService.findPage(filter, cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.participations());
+    }
+
+    /**
+     * Exports the participations with the given status, validated ones by default, as NDJSON or CSV.
+     * The rows are written while they are read from the database, compressed with gzip when the client accepts it.
+     */
+    @PreAuthorize("hasRole('ADMIN') || hasRole('LOGISTIC')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportParticipations(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "VALIDATED") Status status,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"));
+        headers.setContentDisposition(ContentDisposition.builder("attachment")
+                .filename("participations-" + status.name().toLowerCase() + "." + exportFormat.getExtension())
+                .build());
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        StreamingResponseBody body = output -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(output, 8192);
+                participationExportService.export(status, exportFormat, compressed);
+                compressed.finish();
+            } else {
+                participationExportService.export(status, exportFormat, output);
+            }
+        };
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
 
     @PreAuthorize("hasRole('ADMIN') || hasRole('LOGISTIC')")
     @GetMapping("/{id}")
     public ResponseEntity<ParticipationByIdDTO> getParticipationById(@PathVariable Long id) {
-        Participation participation = participationService.findById(id);
-        return ResponseEntity.ok(ParticipationByIdDTO.fromEntity(participation));
+        return ResponseEntity.ok(ParticipationByIdDTO.fromDetail(participationService.findDetailById(id)));
     }
 
     @PostMapping("/photo/{id}")
-    public void addPhoto(@RequestBody MultipartFile file, @PathVariable Long id) {
-        participationService.addPhoto(file, id);
+    public void addPhoto(@RequestBody MultipartFile file, @PathVariable Long id, @RequestHeader(value = "X-Photo-Digest", required = false) String digest) {
+        participationService.addPhoto(file, id, digest);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/photo/{id}/info")
+    public ResponseEntity<PhotoDTO> getPhotoInfo(@PathVariable Long id) {
+        ParticipationPhoto photo = participationService.findPhoto(id);
+        return ResponseEntity.ok(PhotoDTO.fromEntity(photo, participationService.countPhotoUsages(photo)));
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/photo/duplicates")
+    public ResponseEntity<List<SharedPhotoDTO>> getSharedPhotos() {
+        List<SharedPhotoDTO> shared = participationService.findSharedPhotos()
+                .entrySet()
+                .stream()
+                .map(entry -> new SharedPhotoDTO(entry.getKey(), entry.getValue()))
+                .toList();
+        return ResponseEntity.ok(shared);
     }
 
+    /**
+     * Sends the photo of a participation, or one of its thumbnails when a size in pixels is given (128 or 512).
+     * The content key is used as a strong ETag. The URL is keyed by participation and its photo may be replaced,
+     * so clients revalidate on each use, and conditional requests are answered with 304 from the metadata alone,
+     * without opening the photo.
+     * Range requests are answered with 206 by the resource message converter.
+     */
     @PreAuthorize("hasRole('ADMIN') || hasRole('LOGISTIC')")
     @GetMapping("/photo")
-    public ResponseEntity<?> getPhoto(@RequestParam("id") Long id) {
-        Participation participation = participationService.findById(id);
+    public ResponseEntity<Resource> getPhoto(@RequestParam("id") Long id, @RequestParam(value = "size", required = false) Integer size, WebRequest request) {
+        ParticipationPhoto photo = participationService.findPhoto(id);
+        ThumbnailSize thumbnailSize = size == null ? null : ThumbnailSize.ofPixels(size);
+        String eTag = thumbnailSize == null
+                ? "\"" + photo.getStorageKey() + "\""
+                : "\"" + photo.getStorageKey() + "-" + thumbnailSize.getPixels() + "\"";
+        long lastModified = photo.getUploadedAt() == null
+                ? -1
+                : photo.getUploadedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+
+        if (request.checkNotModified(eTag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType(participation.getPictureType()));
-        headers.setContentDisposition(ContentDisposition.builder("attachment").filename(participation.getPictureName()).build());
-        return new ResponseEntity<>(participation.getBlob(), headers, HttpStatus.OK);
+        headers.setETag(eTag);
+        headers.setCacheControl(cacheControl);
+        if (lastModified >= 0) {
+            headers.setLastModified(lastModified);
+        }
+
+        if (thumbnailSize == null) {
+            headers.setContentType(MediaType.parseMediaType(photo.getPictureType()));
+            headers.setContentDisposition(ContentDisposition.builder("attachment").filename(photo.getPictureName()).build());
+            return new ResponseEntity<>(participationService.loadPhoto(photo), headers, HttpStatus.OK);
+        }
+
+        PhotoThumbnail thumbnail = participationService.findThumbnail(photo, thumbnailSize);
+        headers.setContentType(MediaType.IMAGE_JPEG);
+        headers.setContentDisposition(ContentDisposition.builder("inline").filename(id + "-" + thumbnailSize.getPixels() + ".jpg").build());
+        return new ResponseEntity<>(participationService.loadThumbnail(thumbnail), headers, HttpStatus.OK);
     }
 
     @PostMapping("/rating")
@@ -72,20 +199,49 @@ public class ParticipationController {
     //TODO: ces 3 méthodes Patch ne fonctionnent pas sur le front sauf si je retire le PreAuthorize (sur Swagger si)
     @PreAuthorize("hasRole('ADMIN')")
     @PatchMapping("/validate")
-    public void validate(@RequestParam Long id) {
-        participationService.validate(id);
+    public void validate(@RequestParam Long id, @RequestParam(required = false) Long version) {
+        participationService.validate(id, version);
     }
 
     @PreAuthorize("hasRole('ADMIN')")
     @PatchMapping("/deny")
-    public void deny(@RequestParam Long id) {
-        participationService.deny(id);
+    public void deny(@RequestParam Long id, @RequestParam(required = false) Long version) {
+        participationService.deny(id, version);
     }
 
+    /**
+     * Ships a participation, unless another operator holds an unexpired shipment claim on it.
+     */
     @PreAuthorize("hasRole('ADMIN') || hasRole('LOGISTIC')")
     @PatchMapping("/ship")
-    public void ship(@RequestParam Long id) {
-        participationService.ship(id);
+    public void ship(@RequestParam Long id, @RequestParam(required = false) Long version, Authentication authentication) {
+        participationService.ship(id, version, authentication.getName());
+    }
+
+    /**
+     * Validates the given participations, or the participations matching the criteria when no id is given.
+     * The participations that are not pending are left untouched and listed in the response.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PatchMapping("/validate/bulk")
+    public ResponseEntity<BulkTransitionDTO> validateAll(@RequestBody BulkTransitionForm form) {
+        return ResponseEntity.ok(participationService.changeStatuses(Status.VALIDATED, form.ids(), form.toFilter()));
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PatchMapping("/deny/bulk")
+    public ResponseEntity<BulkTransitionDTO> denyAll(@RequestBody BulkTransitionForm form) {
+        return ResponseEntity.ok(participationService.changeStatuses(Status.DENIED, form.ids(), form.toFilter()));
+    }
+
+    /**
+     * Ships the given participations, or the participations matching the criteria when no id is given.
+     * The participations another operator holds an unexpired shipment claim on are left untouched and listed in the response.
+     */
+    @PreAuthorize("hasRole('ADMIN') || hasRole('LOGISTIC')")
+    @PatchMapping("/ship/bulk")
+    public ResponseEntity<BulkTransitionDTO> shipAll(@RequestBody BulkTransitionForm form, Authentication authentication) {
+        return ResponseEntity.ok(participationService.shipAll(form.ids(), form.toFilter(), authentication.getName()));
     }
 
     @PreAuthorize("hasRole('ADMIN') || hasRole('LOGISTIC')")
@@ -100,6 +256,42 @@ public class ParticipationController {
         return ResponseEntity.ok(participationService.statsDTOBuilder());
     }
 
+    /**
+     * Counts the participations of each day, week or month of a range, optionally filtered by status, province or product type.
+     */
+    @PreAuthorize("hasRole('ADMIN') || hasRole('LOGISTIC')")
+    @GetMapping("/stats/series")
+    public ResponseEntity<List<TimeSeriesPointDTO>> getTimeSeries(
+            @RequestParam LocalDate from,
+            @RequestParam LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) Status status,
+            @RequestParam(required = false) String province,
+            @RequestParam(required = false) String productType
+    ) {
+        return ResponseEntity.ok(participationService.countTimeSeries(from, to, Granularity.of(granularity), status, province == null ? null : Province.of(province), productType)
+                .entrySet()
+                .stream()
+                .map(period -> new TimeSeriesPointDTO(period.getKey(), period.getValue()))
+                .toList());
+    }
+
+    /**
+     * The p50, p90 and p99 time in seconds participations spent in a status before each transition, for the transitions
+     * of the given days.
+     */
+    @PreAuthorize("hasRole('ADMIN') || hasRole('LOGISTIC')")
+    @GetMapping("/stats/lead-times")
+    public ResponseEntity<List<LeadTimeDTO>> getLeadTimes(@RequestParam LocalDate from, @RequestParam LocalDate to) {
+        return ResponseEntity.ok(participationService.findLeadTimes(from, to));
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/stats/rebuild")
+    public void rebuildStats() {
+        participationService.rebuildStats();
+    }
+
     @PreAuthorize("hasRole('ADMIN') || hasRole('LOGISTIC')")
     @GetMapping("/dashboard")
     public ResponseEntity<DashboardDTO> getDashboard() {
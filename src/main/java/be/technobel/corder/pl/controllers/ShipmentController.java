@@ -0,0 +1,43 @@
+package be.technobel.corder.pl.controllers;
+
+import be.technobel.corder.bl.services.ShipmentService;
+import be.technobel.corder.pl.models.dtos.BulkTransitionDTO;
+import be.technobel.corder.pl.models.dtos.ShipmentClaimDTO;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * The ShipmentController class defines the endpoints the logistics operators work the validated participations with:
+ * claim the next participations to ship, complete them once shipped, or release them.
+ */
+@RestController
+@RequestMapping("/shipment")
+public class ShipmentController {
+    private final ShipmentService shipmentService;
+
+    public ShipmentController(ShipmentService shipmentService) {
+        this.shipmentService = shipmentService;
+    }
+
+    @PreAuthorize("hasRole('ADMIN') || hasRole('LOGISTIC')")
+    @PostMapping("/claim")
+    public ResponseEntity<ShipmentClaimDTO> claim(@RequestParam(required = false) Integer size, Authentication authentication) {
+        return ResponseEntity.ok(shipmentService.claim(authentication.getName(), size));
+    }
+
+    @PreAuthorize("hasRole('ADMIN') || hasRole('LOGISTIC')")
+    @PostMapping("/complete")
+    public ResponseEntity<BulkTransitionDTO> complete(@RequestBody List<Long> ids, Authentication authentication) {
+        return ResponseEntity.ok(shipmentService.complete(authentication.getName(), ids));
+    }
+
+    @PreAuthorize("hasRole('ADMIN') || hasRole('LOGISTIC')")
+    @PostMapping("/release")
+    public ResponseEntity<Integer> release(@RequestBody List<Long> ids, Authentication authentication) {
+        return ResponseEntity.ok(shipmentService.release(authentication.getName(), ids));
+    }
+}
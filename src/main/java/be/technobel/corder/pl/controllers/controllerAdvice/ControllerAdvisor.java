@@ -3,6 +3,7 @@ package be.technobel.corder.pl.controllers.controllerAdvice;
 import be.technobel.corder.pl.config.exceptions.*;
 import be.technobel.corder.pl.models.dtos.ErrorDTO;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -12,6 +13,7 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartException;
 
 @RestControllerAdvice
@@ -21,11 +23,26 @@ public class ControllerAdvisor {
         return new ResponseEntity<>(new ErrorDTO(e.getMessage(), ""), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(StatusConflictException.class)
+    public ResponseEntity<ErrorDTO> handleStatusConflictException(StatusConflictException e) {
+        return new ResponseEntity<>(new ErrorDTO(e.getMessage(), ""), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorDTO> handleOptimisticLockingFailureException(OptimisticLockingFailureException e) {
+        return new ResponseEntity<>(new ErrorDTO("La participation a été modifiée entretemps, rechargez-la avant de réessayer", ""), HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(PhotoException.class)
     public ResponseEntity<ErrorDTO> handlePhotoException(PhotoException e) {
         return new ResponseEntity<>(new ErrorDTO(e.getMessage(), ""), HttpStatus.NOT_ACCEPTABLE);
     }
 
+    @ExceptionHandler({PhotoTooLargeException.class, MaxUploadSizeExceededException.class})
+    public ResponseEntity<ErrorDTO> handlePhotoTooLargeException(RuntimeException e) {
+        return new ResponseEntity<>(new ErrorDTO(e.getMessage(), ""), HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
     @ExceptionHandler(EntityNotFoundException.class)
     public ResponseEntity<ErrorDTO> handleEntityNotFoundException(EntityNotFoundException e) {
         return new ResponseEntity<>(new ErrorDTO(e.getMessage(), ""), HttpStatus.NOT_FOUND);
@@ -71,6 +88,11 @@ public class ControllerAdvisor {
         return new ResponseEntity<>(new ErrorDTO(e.getMessage(), ""), HttpStatus.SERVICE_UNAVAILABLE);
     }
 
+    @ExceptionHandler(StatsUnavailableException.class)
+    public ResponseEntity<ErrorDTO> handleStatsUnavailableException(StatsUnavailableException e) {
+        return new ResponseEntity<>(new ErrorDTO(e.getMessage(), ""), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(TooManyRequestsException.class)
     public ResponseEntity<ErrorDTO> handleTooManyRequestsException(TooManyRequestsException e) {
         return new ResponseEntity<>(new ErrorDTO(e.getMessage(), ""), HttpStatus.TOO_MANY_REQUESTS);
@@ -16,4 +16,15 @@ public record AddressDTO(
                 .postCode(String.valueOf(participation.getAddress().getPostCode()))
                 .build();
     }
+
+    public static AddressDTO of(String street, String city, Integer postCode) {
+        if (street == null && city == null && postCode == null) {
+            return null;
+        }
+        return AddressDTO.builder()
+                .street(street)
+                .city(city)
+                .postCode(String.valueOf(postCode))
+                .build();
+    }
 }
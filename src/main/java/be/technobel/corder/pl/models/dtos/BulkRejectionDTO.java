@@ -0,0 +1,15 @@
+package be.technobel.corder.pl.models.dtos;
+
+import be.technobel.corder.dl.models.enums.Status;
+
+/**
+ * @param id            The ID of the participation.
+ * @param currentStatus The current status of the participation, or null when it does not exist or was not read.
+ * @param reason        Why the participation was not moved.
+ */
+public record BulkRejectionDTO(
+        Long id,
+        Status currentStatus,
+        String reason
+) {
+}
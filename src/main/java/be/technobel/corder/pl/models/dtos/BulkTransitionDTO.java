@@ -0,0 +1,17 @@
+package be.technobel.corder.pl.models.dtos;
+
+import be.technobel.corder.dl.models.enums.Status;
+
+import java.util.List;
+
+/**
+ * @param status   The status the participations were moved to.
+ * @param updated  The number of participations moved to the status.
+ * @param rejected The participations that were not moved, with the reason.
+ */
+public record BulkTransitionDTO(
+        Status status,
+        int updated,
+        List<BulkRejectionDTO> rejected
+) {
+}
@@ -0,0 +1,32 @@
+package be.technobel.corder.pl.models.dtos;
+
+import be.technobel.corder.dl.models.enums.Status;
+import be.technobel.corder.dl.models.projections.StageLeadTime;
+
+/**
+ * @param fromStatus  The status the participations left.
+ * @param toStatus    The status the participations entered.
+ * @param transitions The number of transitions measured.
+ * @param p50Seconds  The median time spent in the status left, in seconds.
+ * @param p90Seconds  The 90th percentile of that time, in seconds.
+ * @param p99Seconds  The 99th percentile of that time, in seconds.
+ */
+public record LeadTimeDTO(
+        Status fromStatus,
+        Status toStatus,
+        long transitions,
+        double p50Seconds,
+        double p90Seconds,
+        double p99Seconds
+) {
+    public static LeadTimeDTO fromStage(StageLeadTime stage) {
+        return new LeadTimeDTO(
+                stage.fromStatus(),
+                stage.toStatus(),
+                stage.transitions(),
+                stage.p50Seconds(),
+                stage.p90Seconds(),
+                stage.p99Seconds()
+        );
+    }
+}
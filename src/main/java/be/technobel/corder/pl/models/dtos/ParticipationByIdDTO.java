@@ -2,6 +2,7 @@ package be.technobel.corder.pl.models.dtos;
 
 import be.technobel.corder.dl.models.Participation;
 import be.technobel.corder.dl.models.enums.Status;
+import be.technobel.corder.dl.models.projections.ParticipationDetail;
 
 public record ParticipationByIdDTO(
         Long id,
@@ -12,7 +13,8 @@ public record ParticipationByIdDTO(
         Status status,
         String productType,
         boolean acceptNewsLetter,
-        boolean acceptExposure
+        boolean acceptExposure,
+        long version
 ) {
     public static ParticipationByIdDTO fromEntity(Participation participation) {
         return new ParticipationByIdDTO(
@@ -24,7 +26,23 @@ public record ParticipationByIdDTO(
                 participation.getStatus(),
                 participation.getProductType(),
                 participation.isAcceptNewsletter(),
-                participation.isAcceptExposure()
+                participation.isAcceptExposure(),
+                participation.getVersion()
+        );
+    }
+
+    public static ParticipationByIdDTO fromDetail(ParticipationDetail participation) {
+        return new ParticipationByIdDTO(
+                participation.id(),
+                participation.firstName(),
+                participation.lastName(),
+                participation.email(),
+                AddressDTO.of(participation.street(), participation.city(), participation.postCode()),
+                participation.status(),
+                participation.productType(),
+                participation.acceptNewsletter(),
+                participation.acceptExposure(),
+                participation.version()
         );
     }
 }
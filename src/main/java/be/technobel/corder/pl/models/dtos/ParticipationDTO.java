@@ -2,6 +2,7 @@ package be.technobel.corder.pl.models.dtos;
 
 import be.technobel.corder.dl.models.Participation;
 import be.technobel.corder.dl.models.enums.Status;
+import be.technobel.corder.dl.models.projections.ParticipationSummary;
 
 import java.time.LocalDate;
 
@@ -25,4 +26,16 @@ public record ParticipationDTO(
                 participation.getStatus()
         );
     }
+
+    public static ParticipationDTO fromSummary(ParticipationSummary participation) {
+        return new ParticipationDTO(
+                participation.id(),
+                participation.lastName(),
+                participation.firstName(),
+                participation.participationDate(),
+                AddressDTO.of(participation.street(), participation.city(), participation.postCode()),
+                participation.productType(),
+                participation.status()
+        );
+    }
 }
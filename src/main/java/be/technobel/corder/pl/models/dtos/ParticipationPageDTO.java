@@ -0,0 +1,13 @@
+package be.technobel.corder.pl.models.dtos;
+
+import java.util.List;
+
+/**
+ * @param participations The participations of the page.
+ * @param nextCursor     The cursor of the next page, or null on the last page.
+ */
+public record ParticipationPageDTO(
+        List<ParticipationDTO> participations,
+        String nextCursor
+) {
+}
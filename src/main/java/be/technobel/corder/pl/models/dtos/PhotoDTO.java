@@ -0,0 +1,27 @@
+package be.technobel.corder.pl.models.dtos;
+
+import be.technobel.corder.dl.models.ParticipationPhoto;
+
+import java.time.LocalDateTime;
+
+public record PhotoDTO(
+        Long participationId,
+        String pictureName,
+        String pictureType,
+        long contentLength,
+        LocalDateTime uploadedAt,
+        String digest,
+        long participationsWithSamePhoto
+) {
+    public static PhotoDTO fromEntity(ParticipationPhoto photo, long usages) {
+        return new PhotoDTO(
+                photo.getId(),
+                photo.getPictureName(),
+                photo.getPictureType(),
+                photo.getContentLength(),
+                photo.getUploadedAt(),
+                photo.getStorageKey(),
+                usages
+        );
+    }
+}
@@ -0,0 +1,9 @@
+package be.technobel.corder.pl.models.dtos;
+
+import java.util.List;
+
+public record SharedPhotoDTO(
+        String digest,
+        List<Long> participationIds
+) {
+}
@@ -0,0 +1,14 @@
+package be.technobel.corder.pl.models.dtos;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * @param expiresAt      The moment the claims expire, after which the participations may be claimed by another operator.
+ * @param participations The claimed participations, from the oldest.
+ */
+public record ShipmentClaimDTO(
+        LocalDateTime expiresAt,
+        List<ParticipationDTO> participations
+) {
+}
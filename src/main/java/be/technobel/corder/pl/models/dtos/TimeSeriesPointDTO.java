@@ -0,0 +1,9 @@
+package be.technobel.corder.pl.models.dtos;
+
+import java.time.LocalDate;
+
+public record TimeSeriesPointDTO(
+        LocalDate periodStart,
+        Long count
+) {
+}
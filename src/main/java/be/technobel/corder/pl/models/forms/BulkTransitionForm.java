@@ -0,0 +1,32 @@
+package be.technobel.corder.pl.models.forms;
+
+import be.technobel.corder.dl.models.enums.Status;
+import be.technobel.corder.dl.repositories.ParticipationFilter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The participations of a bulk status change: either the given ids, or the participations matching the criteria.
+ * Bounds are included.
+ */
+public record BulkTransitionForm(
+        List<Long> ids,
+        Status status,
+        LocalDate fromDate,
+        LocalDate toDate,
+        Integer minPostCode,
+        Integer maxPostCode,
+        String productType
+) {
+    public ParticipationFilter toFilter() {
+        return ParticipationFilter.builder()
+                .status(status)
+                .fromDate(fromDate)
+                .toDate(toDate)
+                .minPostCode(minPostCode)
+                .maxPostCode(maxPostCode)
+                .productType(productType)
+                .build();
+    }
+}
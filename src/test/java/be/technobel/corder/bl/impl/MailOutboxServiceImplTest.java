@@ -0,0 +1,181 @@
+package be.technobel.corder.bl.impl;
+
+import be.technobel.corder.bl.mail.OutgoingMail;
+import be.technobel.corder.bl.services.MailService;
+import be.technobel.corder.dl.models.OutboxMail;
+import be.technobel.corder.dl.models.enums.MailStatus;
+import be.technobel.corder.dl.repositories.OutboxMailRepository;
+import be.technobel.corder.pl.config.exceptions.MailRelayUnavailableException;
+import be.technobel.corder.pl.config.exceptions.SmtpPoolExhaustedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MailOutboxServiceImplTest {
+
+    @Mock
+    OutboxMailRepository outboxMailRepository;
+    @Mock
+    MailService mailService;
+
+    MailOutboxServiceImpl mailOutboxService;
+    OutboxMail mail;
+
+    @BeforeEach
+    public void setUp() {
+        mailOutboxService = new MailOutboxServiceImpl(
+                outboxMailRepository,
+                mailService,
+                3,
+                Duration.ofSeconds(30),
+                Duration.ofMinutes(1),
+                Duration.ofMinutes(5)
+        );
+        mail = OutboxMail.builder()
+                .id(1L)
+                .recipient("alicesmith@gmail.com")
+                .subject("Merci pour votre participation !")
+                .content("<h1>Merci Alice !</h1>")
+                .htmlContent(true)
+                .status(MailStatus.SENDING)
+                .attempts(0)
+                .build();
+    }
+
+    @Test
+    void enqueue_savesPendingMail() {
+        mailOutboxService.enqueue("alicesmith@gmail.com", "sujet", "contenu", true);
+
+        ArgumentCaptor<OutboxMail> captor = ArgumentCaptor.forClass(OutboxMail.class);
+        verify(outboxMailRepository).save(captor.capture());
+        assertEquals(MailStatus.PENDING, captor.getValue().getStatus());
+        assertNotNull(captor.getValue().getNextAttemptAt());
+        verify(mailService, never()).sendMail(any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    void claimDue_nothingWhenNoCapacity() {
+        assertTrue(mailOutboxService.claimDue(0).isEmpty());
+        verifyNoInteractions(outboxMailRepository);
+    }
+
+    @Test
+    void claimDue_delegatesWithLease() {
+        when(outboxMailRepository.claimDue(any(), any(), eq(10))).thenReturn(List.of(1L, 2L));
+
+        assertEquals(List.of(1L, 2L), mailOutboxService.claimDue(10));
+    }
+
+    @Test
+    void dispatch_success_marksSent() {
+        when(outboxMailRepository.findAllById(List.of(1L))).thenReturn(List.of(mail));
+
+        mailOutboxService.dispatch(List.of(1L));
+
+        verify(mailService).sendMails(List.of(new OutgoingMail("alicesmith@gmail.com", "Merci pour votre participation !", "<h1>Merci Alice !</h1>", true)));
+        verify(outboxMailRepository).saveAll(List.of(mail));
+        assertEquals(MailStatus.SENT, mail.getStatus());
+        assertNotNull(mail.getSentAt());
+    }
+
+    @Test
+    void dispatch_failure_reschedulesWithBackoff() {
+        when(outboxMailRepository.findAllById(List.of(1L))).thenReturn(List.of(mail));
+        doThrow(new MailSendException("smtp down")).when(mailService).sendMails(any());
+
+        LocalDateTime before = LocalDateTime.now();
+        mailOutboxService.dispatch(List.of(1L));
+
+        assertEquals(MailStatus.PENDING, mail.getStatus());
+        assertEquals(1, mail.getAttempts());
+        assertEquals("smtp down", mail.getLastError());
+        assertFalse(mail.getNextAttemptAt().isBefore(before.plusSeconds(30)));
+    }
+
+    @Test
+    void dispatch_partialFailure_onlyReschedulesFailedMails() {
+        OutboxMail other = OutboxMail.builder()
+                .id(2L)
+                .recipient("bob@gmail.com")
+                .subject("Merci pour votre participation !")
+                .content("<h1>Merci Bob !</h1>")
+                .htmlContent(true)
+                .status(MailStatus.SENDING)
+                .build();
+        when(outboxMailRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(mail, other));
+        doThrow(new MailSendException("Failed to send email", null, Map.of(1, new Exception("mailbox unavailable"))))
+                .when(mailService).sendMails(any());
+
+        mailOutboxService.dispatch(List.of(1L, 2L));
+
+        assertEquals(MailStatus.SENT, mail.getStatus());
+        assertEquals(MailStatus.PENDING, other.getStatus());
+        assertEquals("mailbox unavailable", other.getLastError());
+    }
+
+    @Test
+    void dispatch_refusedByTheCircuitBreaker_doesNotCountAnAttempt() {
+        when(outboxMailRepository.findAllById(List.of(1L))).thenReturn(List.of(mail));
+        doThrow(new MailRelayUnavailableException("Le relais SMTP est indisponible")).when(mailService).sendMails(any());
+
+        mailOutboxService.dispatch(List.of(1L));
+
+        assertEquals(MailStatus.PENDING, mail.getStatus());
+        assertEquals(0, mail.getAttempts());
+        verify(outboxMailRepository).saveAll(List.of(mail));
+    }
+
+    @Test
+    void dispatch_busyConnectionPool_doesNotCountAnAttempt() {
+        when(outboxMailRepository.findAllById(List.of(1L))).thenReturn(List.of(mail));
+        doThrow(new SmtpPoolExhaustedException("Aucune connexion SMTP disponible")).when(mailService).sendMails(any());
+
+        mailOutboxService.dispatch(List.of(1L));
+
+        assertEquals(MailStatus.PENDING, mail.getStatus());
+        assertEquals(0, mail.getAttempts());
+    }
+
+    @Test
+    void dispatch_lastAttempt_marksDead() {
+        mail.setAttempts(2);
+        when(outboxMailRepository.findAllById(List.of(1L))).thenReturn(List.of(mail));
+        doThrow(new MailSendException("smtp down")).when(mailService).sendMails(any());
+
+        mailOutboxService.dispatch(List.of(1L));
+
+        assertEquals(MailStatus.DEAD, mail.getStatus());
+        assertEquals(3, mail.getAttempts());
+    }
+
+    @Test
+    void dispatch_notClaimed_isIgnored() {
+        mail.setStatus(MailStatus.SENT);
+        when(outboxMailRepository.findAllById(List.of(1L))).thenReturn(List.of(mail));
+
+        mailOutboxService.dispatch(List.of(1L));
+
+        verifyNoInteractions(mailService);
+        verify(outboxMailRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void backoff_doublesUpToMaximum() {
+        assertEquals(Duration.ofSeconds(30), mailOutboxService.backoff(1));
+        assertEquals(Duration.ofSeconds(60), mailOutboxService.backoff(2));
+        assertEquals(Duration.ofMinutes(1), mailOutboxService.backoff(10));
+    }
+}
@@ -0,0 +1,176 @@
+package be.technobel.corder.bl.impl;
+
+import be.technobel.corder.bl.mail.MailCircuitBreaker;
+import be.technobel.corder.bl.mail.MailTemplateCache;
+import be.technobel.corder.bl.mail.OutgoingMail;
+import be.technobel.corder.bl.mail.SmtpTransportPool;
+import be.technobel.corder.pl.config.exceptions.MailRelayUnavailableException;
+import be.technobel.corder.pl.config.exceptions.SmtpPoolExhaustedException;
+import jakarta.mail.MessagingException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.thymeleaf.TemplateEngine;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sends mails to a local fake SMTP server, comparing the connections of the pooled batch path with one connection per message.
+ */
+class MailServiceImplTest {
+
+    private static final int MAILS = 20;
+
+    FakeSmtpServer smtpServer;
+    JavaMailSenderImpl mailSender;
+    SmtpTransportPool transportPool;
+    MailCircuitBreaker circuitBreaker;
+    MailServiceImpl mailService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        smtpServer = new FakeSmtpServer(20);
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtpServer.getPort());
+        Properties properties = new Properties();
+        properties.put("mail.smtp.connectiontimeout", "2000");
+        properties.put("mail.smtp.timeout", "2000");
+        mailSender.setJavaMailProperties(properties);
+        transportPool = new SmtpTransportPool(mailSender, 2, Duration.ofMinutes(1), Duration.ofSeconds(5));
+        circuitBreaker = new MailCircuitBreaker(2, Duration.ofMinutes(1));
+        mailService = new MailServiceImpl(mailSender, new MailTemplateCache(new TemplateEngine()), transportPool, circuitBreaker);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        transportPool.shutdown();
+        smtpServer.close();
+    }
+
+    @Test
+    void sendMails_usesOneConnectionForTheBatch() {
+        mailService.sendMails(mails());
+
+        assertEquals(MAILS, smtpServer.getMessages());
+        assertEquals(1, smtpServer.getConnections());
+    }
+
+    @Test
+    void sendMail_reusesThePooledConnection() {
+        for (OutgoingMail mail : mails()) {
+            mailService.sendMail(mail.to(), mail.subject(), mail.content(), mail.isHtmlContent());
+        }
+
+        assertEquals(MAILS, smtpServer.getMessages());
+        assertEquals(1, smtpServer.getConnections());
+        assertEquals(1, transportPool.idleConnections());
+    }
+
+    @Test
+    void sendMails_opensOneConnectionInsteadOfOnePerMessage() throws Exception {
+        for (OutgoingMail mail : mails()) {
+            var message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message);
+            helper.setFrom("info@corder.be");
+            helper.setTo(mail.to());
+            helper.setSubject(mail.subject());
+            helper.setText(mail.content(), mail.isHtmlContent());
+            mailSender.send(message);
+        }
+        int perMessageConnections = smtpServer.getConnections();
+
+        mailService.sendMails(mails());
+
+        assertEquals(MAILS, perMessageConnections);
+        assertEquals(1, smtpServer.getConnections() - perMessageConnections);
+        assertEquals(2 * MAILS, smtpServer.getMessages());
+    }
+
+    @Test
+    void sendMails_rejectedRecipientsAreReported() {
+        smtpServer.setRejectAll(true);
+
+        MailSendException exception = assertThrows(MailSendException.class, () -> mailService.sendMails(mails()));
+
+        assertEquals(MAILS, exception.getFailedMessages().size());
+        assertEquals(MailCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void sendMails_identicalRejectedMailsAreReportedByIndex() {
+        smtpServer.setRejectAll(true);
+        OutgoingMail mail = mails().get(0);
+
+        MailSendException exception = assertThrows(MailSendException.class, () -> mailService.sendMails(List.of(mail, mail, mail)));
+
+        assertEquals(3, exception.getFailedMessages().size());
+        assertTrue(exception.getFailedMessages().keySet().containsAll(List.of(0, 1, 2)));
+    }
+
+    @Test
+    void sendMails_failsFastOnceTheCircuitIsOpen() throws Exception {
+        smtpServer.close();
+
+        assertThrows(MailSendException.class, () -> mailService.sendMails(mails()));
+        assertThrows(MailSendException.class, () -> mailService.sendMails(mails()));
+
+        assertEquals(MailCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertThrows(MailRelayUnavailableException.class, () -> mailService.sendMails(mails()));
+    }
+
+    @Test
+    void sendMails_busyPoolDoesNotOpenTheCircuit() throws Exception {
+        SmtpTransportPool singleConnection = new SmtpTransportPool(mailSender, 1, Duration.ofMinutes(1), Duration.ofMillis(100));
+        MailServiceImpl service = new MailServiceImpl(mailSender, new MailTemplateCache(new TemplateEngine()), singleConnection, circuitBreaker);
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            try {
+                singleConnection.execute(transport -> {
+                    held.countDown();
+                    try {
+                        done.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return null;
+                });
+            } catch (MessagingException ignored) {
+                // the test only needs the connection to be busy
+            }
+        });
+        holder.start();
+        try {
+            assertTrue(held.await(5, TimeUnit.SECONDS));
+
+            for (int i = 0; i < 3; i++) {
+                assertThrows(SmtpPoolExhaustedException.class, () -> service.sendMails(mails()));
+            }
+
+            assertEquals(MailCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        } finally {
+            done.countDown();
+            holder.join();
+        }
+        service.sendMails(mails());
+        assertEquals(MAILS, smtpServer.getMessages());
+        singleConnection.shutdown();
+    }
+
+    private List<OutgoingMail> mails() {
+        return IntStream.range(0, MAILS)
+                .mapToObj(i -> new OutgoingMail("participant" + i + "@corder.be", "Merci pour votre participation !", "<h1>Merci " + i + " !</h1>", true))
+                .toList();
+    }
+}
@@ -0,0 +1,83 @@
+package be.technobel.corder.bl.impl;
+
+import be.technobel.corder.dl.models.enums.ExportFormat;
+import be.technobel.corder.dl.models.enums.Status;
+import be.technobel.corder.dl.models.projections.ParticipationExportRow;
+import be.technobel.corder.dl.repositories.ParticipationRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ParticipationExportServiceImplTest {
+
+    @Mock
+    ParticipationRepository participationRepository;
+
+    ParticipationExportServiceImpl exportService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        exportService = new ParticipationExportServiceImpl(participationRepository, objectMapper, TransactionOperations.withoutTransaction());
+    }
+
+    private ParticipationExportRow row(Long id, String street) {
+        return new ParticipationExportRow(id, LocalDate.of(2024, 3, 4), "Alice", "Smith", "alice@example.com", street, "Namur", 5000, "Herbicide", Status.VALIDATED, null);
+    }
+
+    @Test
+    void export_ndjson_writesOneObjectPerLine() throws IOException {
+        when(participationRepository.streamExportRows(Status.VALIDATED)).thenReturn(Stream.of(row(1L, "rue A"), row(2L, "rue B")));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        exportService.export(Status.VALIDATED, ExportFormat.NDJSON, output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,\"participationDate\":\"2024-03-04\""));
+        assertTrue(lines[1].contains("\"street\":\"rue B\""));
+    }
+
+    @Test
+    void export_csv_quotesAndNeutralizesFields() throws IOException {
+        when(participationRepository.streamExportRows(Status.VALIDATED)).thenReturn(Stream.of(row(1L, "rue \"A\", 5"), row(2L, "=1+1")));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        exportService.export(Status.VALIDATED, ExportFormat.CSV, output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("id,participationDate,"));
+        assertEquals("1,2024-03-04,Alice,Smith,alice@example.com,\"rue \"\"A\"\", 5\",Namur,5000,Herbicide,VALIDATED,", lines[1]);
+        assertTrue(lines[2].contains(",'=1+1,"));
+    }
+
+    @Test
+    void export_closesTheStream() throws IOException {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(participationRepository.streamExportRows(null)).thenReturn(Stream.of(row(1L, "rue A")).onClose(() -> closed.set(true)));
+
+        exportService.export(null, ExportFormat.NDJSON, new ByteArrayOutputStream());
+
+        assertTrue(closed.get());
+    }
+}
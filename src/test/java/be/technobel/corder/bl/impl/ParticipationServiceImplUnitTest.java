@@ -1,23 +1,73 @@
 package be.technobel.corder.bl.impl;
 
+import be.technobel.corder.bl.services.MailOutboxService;
+import be.technobel.corder.bl.services.PhotoContentService;
+import be.technobel.corder.bl.services.ThumbnailService;
+import be.technobel.corder.bl.stats.ParticipationChangedEvent;
+import be.technobel.corder.bl.stats.StatsCache;
+import be.technobel.corder.bl.stats.StatsSections;
+import be.technobel.corder.bl.utils.ParticipationCursor;
+import be.technobel.corder.bl.storage.PhotoStore;
+import be.technobel.corder.bl.storage.PhotoStoredEvent;
+import be.technobel.corder.bl.storage.SpooledPhoto;
+import be.technobel.corder.bl.storage.StoredPhoto;
+import be.technobel.corder.bl.utils.StatBuckets;
 import be.technobel.corder.dl.models.Address;
 import be.technobel.corder.dl.models.Participation;
+import be.technobel.corder.dl.models.ParticipationPhoto;
+import be.technobel.corder.dl.models.ParticipationStatusEvent;
+import be.technobel.corder.dl.models.ShipmentClaim;
+import be.technobel.corder.dl.models.enums.Granularity;
+import be.technobel.corder.dl.models.enums.Province;
 import be.technobel.corder.dl.models.enums.Status;
+import be.technobel.corder.dl.models.projections.DayCount;
+import be.technobel.corder.dl.models.projections.KeyCount;
+import be.technobel.corder.dl.models.projections.NumberCount;
+import be.technobel.corder.dl.models.projections.ParticipationKeys;
+import be.technobel.corder.dl.models.projections.ParticipationStatus;
+import be.technobel.corder.dl.models.projections.ParticipationSummary;
+import be.technobel.corder.dl.models.projections.StageLeadTime;
+import be.technobel.corder.dl.models.projections.StatSource;
+import be.technobel.corder.dl.models.projections.StatusTransition;
+import be.technobel.corder.dl.repositories.ParticipationPhotoRepository;
+import be.technobel.corder.dl.repositories.ParticipationFilter;
 import be.technobel.corder.dl.repositories.ParticipationRepository;
+import be.technobel.corder.dl.repositories.ParticipationStatRepository;
+import be.technobel.corder.dl.repositories.ParticipationStatusEventRepository;
+import be.technobel.corder.dl.repositories.ShipmentClaimRepository;
 import be.technobel.corder.pl.config.exceptions.DuplicateParticipationException;
+import be.technobel.corder.pl.config.exceptions.StatusConflictException;
+import be.technobel.corder.pl.models.dtos.BulkRejectionDTO;
+import be.technobel.corder.pl.models.dtos.BulkTransitionDTO;
+import be.technobel.corder.pl.models.dtos.LeadTimeDTO;
+import be.technobel.corder.pl.models.dtos.ParticipationDTO;
+import be.technobel.corder.pl.models.dtos.ParticipationPageDTO;
+import be.technobel.corder.pl.models.dtos.StatsDTO;
 import be.technobel.corder.pl.models.forms.ParticipationForm;
 import be.technobel.corder.pl.models.forms.SatisfactionForm;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.io.InputStream;
 import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,10 +81,34 @@ public class ParticipationServiceImplUnitTest {
 
     @Mock
     ParticipationRepository participationRepository;
+    @Mock
+    ParticipationPhotoRepository participationPhotoRepository;
+    @Mock
+    ParticipationStatRepository participationStatRepository;
+    @Mock
+    ParticipationStatusEventRepository participationStatusEventRepository;
+    @Mock
+    ShipmentClaimRepository shipmentClaimRepository;
+    @Mock
+    PhotoStore photoStore;
+    @Mock
+    PhotoContentService photoContentService;
+    @Mock
+    ThumbnailService thumbnailService;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
     @InjectMocks
     ParticipationServiceImpl participationService;
     @Mock
     MailServiceImpl mailService;
+    @Mock
+    MailOutboxService mailOutboxService;
+    @Spy
+    TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+    @Spy
+    StatsCache statsCache = new StatsCache(Duration.ofMinutes(1));
+    @Spy
+    StatsSections statsSections = new StatsSections(TransactionOperations.withoutTransaction(), 2, 8, Duration.ofSeconds(5));
 
     Participation participation;
     ParticipationForm participationForm;
@@ -50,17 +124,17 @@ public class ParticipationServiceImplUnitTest {
                 "Alice",
                 "Smith",
                 "alicesmith@gmail.com",
-                address,
-                Status.PENDING,
-                null,
                 null,
+                address,
                 null,
+                Status.PENDING,
                 null,
                 null,
                 0,
                 null,
                 true,
-                true
+                true,
+                0L
         );
         participationForm = new ParticipationForm(
                 participation.getFirstName(),
@@ -84,18 +158,76 @@ public class ParticipationServiceImplUnitTest {
 
     @Test
     void testCreate() {
-        when(participationRepository.save(any(Participation.class))).thenReturn(participation);
+        when(participationRepository.saveAndFlush(any(Participation.class))).thenReturn(participation);
 
         Participation result = participationService.create(participationForm);
 
         // assertions here
         assertEquals(participation.getEmail(), result.getEmail());
-        verify(participationRepository, times(1)).save(any(Participation.class));
+        verify(participationRepository, times(1)).saveAndFlush(any(Participation.class));
+        verify(mailOutboxService, times(1)).enqueue(eq(participationForm.email()), anyString(), any(), eq(true));
+        verify(mailService, never()).sendMail(any(), any(), any(), anyBoolean());
+        verify(participationStatRepository).increment(participation.getParticipationDate(), "NAMUR", "", 0, "", "PENDING", 1L);
+        verify(eventPublisher).publishEvent(new ParticipationChangedEvent(participation.getId()));
+        ArgumentCaptor<ParticipationStatusEvent> event = ArgumentCaptor.forClass(ParticipationStatusEvent.class);
+        verify(participationStatusEventRepository).save(event.capture());
+        assertEquals(participation.getId(), event.getValue().getParticipationId());
+        assertNull(event.getValue().getFromStatus());
+        assertEquals(Status.PENDING, event.getValue().getToStatus());
+    }
+
+    @Test
+    void testCreateConcurrentDuplicateEmail() {
+        when(participationRepository.saveAndFlush(any(Participation.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint \"uk_participation_email_key\""));
+
+        Exception exception = assertThrows(DuplicateParticipationException.class, () -> participationService.create(participationForm));
+
+        assertEquals("Ce participant a déjà joué avec cet email !", exception.getMessage());
+        verify(mailOutboxService, never()).enqueue(any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    void testCreateConcurrentDuplicateAddress() {
+        when(participationRepository.saveAndFlush(any(Participation.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint \"uk_participation_address_key\""));
+
+        Exception exception = assertThrows(DuplicateParticipationException.class, () -> participationService.create(participationForm));
+
+        assertEquals("Ce foyer a déjà une participation !", exception.getMessage());
+    }
+
+    @Test
+    void testCreateOtherIntegrityViolationIsNotReportedAsDuplicate() {
+        when(participationRepository.saveAndFlush(any(Participation.class)))
+                .thenThrow(new DataIntegrityViolationException("null value in column \"last_name\" violates not-null constraint"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> participationService.create(participationForm));
+        verify(mailOutboxService, never()).enqueue(any(), any(), any(), anyBoolean());
     }
 
     @Test
     void testCreateDuplicateParticipantEmail() {
-        when(participationRepository.findAll()).thenReturn(List.of(participation));
+        when(participationRepository.findKeysByEmailKeyOrAddressKey("alicesmith@gmail.com", "rueduparadisciel5432"))
+                .thenReturn(List.of(new ParticipationKeys("alicesmith@gmail.com", "rueduparadisciel5432")));
+
+        Exception exception = assertThrows(DuplicateParticipationException.class, () -> {
+            participationService.create(participationForm);
+        });
+
+        String expected = "Ce participant a déjà joué avec cet email !";
+        String actual = exception.getMessage();
+
+        assertTrue(actual.contains(expected));
+        verify(participationRepository, never()).saveAndFlush(any(Participation.class));
+    }
+
+    @Test
+    void testCreateDuplicateParticipantEmailWithSpacesAndCase() {
+        participationForm = formWith(" AliceSmith@Gmail.com ", participationForm.street(), participationForm.city());
+
+        when(participationRepository.findKeysByEmailKeyOrAddressKey("alicesmith@gmail.com", "rueduparadisciel5432"))
+                .thenReturn(List.of(new ParticipationKeys("alicesmith@gmail.com", "autrerue1000")));
 
         Exception exception = assertThrows(DuplicateParticipationException.class, () -> {
             participationService.create(participationForm);
@@ -109,8 +241,8 @@ public class ParticipationServiceImplUnitTest {
 
     @Test
     void testCreateDuplicateParticipantAddress() {
-        participation.setEmail("alicesmith2@gmail.com");
-        when(participationRepository.findAll()).thenReturn(List.of(participation));
+        when(participationRepository.findKeysByEmailKeyOrAddressKey("alicesmith@gmail.com", "rueduparadisciel5432"))
+                .thenReturn(List.of(new ParticipationKeys("alicesmith2@gmail.com", "rueduparadisciel5432")));
 
         Exception exception = assertThrows(DuplicateParticipationException.class, () -> {
             participationService.create(participationForm);
@@ -124,11 +256,10 @@ public class ParticipationServiceImplUnitTest {
 
     @Test
     void testCreateDuplicateParticipantAddressWithSpaces() {
-        participation.setEmail("alicesmith2@gmail.com");
-        address.setStreet(" " + address.getStreet() + " ");
-        address.setCity(" " + address.getCity() + " ");
+        participationForm = formWith(participationForm.email(), " " + address.getStreet() + " ", " " + address.getCity() + " ");
 
-        when(participationRepository.findAll()).thenReturn(List.of(participation));
+        when(participationRepository.findKeysByEmailKeyOrAddressKey("alicesmith@gmail.com", "rueduparadisciel5432"))
+                .thenReturn(List.of(new ParticipationKeys("alicesmith2@gmail.com", "rueduparadisciel5432")));
 
         Exception exception = assertThrows(DuplicateParticipationException.class, () -> {
             participationService.create(participationForm);
@@ -142,12 +273,10 @@ public class ParticipationServiceImplUnitTest {
 
     @Test
     void testCreateDuplicateParticipantAddressWithDifferentChars() {
-        participation.setEmail("alicesmith2@gmail.com");
+        participationForm = formWith(participationForm.email(), "_" + address.getStreet() + "?", "°" + address.getCity() + ")");
 
-        address.setStreet("_" + address.getStreet() + "?");
-        address.setCity("°" + address.getCity() + ")");
-
-        when(participationRepository.findAll()).thenReturn(List.of(participation));
+        when(participationRepository.findKeysByEmailKeyOrAddressKey("alicesmith@gmail.com", "rueduparadisciel5432"))
+                .thenReturn(List.of(new ParticipationKeys("alicesmith2@gmail.com", "rueduparadisciel5432")));
 
         Exception exception = assertThrows(DuplicateParticipationException.class, () -> {
             participationService.create(participationForm);
@@ -159,15 +288,68 @@ public class ParticipationServiceImplUnitTest {
         assertTrue(actual.contains(expected));
     }
 
+    private ParticipationForm formWith(String email, String street, String city) {
+        return new ParticipationForm(
+                participationForm.firstName(),
+                participationForm.lastName(),
+                email,
+                participationForm.status(),
+                participationForm.productType(),
+                street,
+                city,
+                participationForm.postCode(),
+                participationForm.acceptNewsletter(),
+                participationForm.acceptExposure()
+        );
+    }
+
+    @Test
+    void findPage_firstPage_returnsCursorOfLastParticipation() {
+        LocalDate day = LocalDate.of(2024, 3, 4);
+        ParticipationFilter filter = ParticipationFilter.builder().status(Status.PENDING).build();
+        when(participationRepository.findSummaries(filter, null, null, 3)).thenReturn(List.of(
+                new ParticipationSummary(9L, "Smith", "Alice", day, "rue du paradis", "ciel", 5432, "Herbicide", Status.PENDING),
+                new ParticipationSummary(7L, "Doe", "John", day, "rue de l'enfer", "terre", 4000, null, Status.PENDING),
+                new ParticipationSummary(3L, "Roe", "Jane", day.minusDays(1), "rue du purgatoire", "limbes", 1300, null, Status.PENDING)
+        ));
+
+        ParticipationPageDTO page = participationService.findPage(filter, null, 2);
+
+        assertEquals(List.of(9L, 7L), page.participations().stream().map(ParticipationDTO::id).toList());
+        assertEquals("5432", page.participations().get(0).participantAddress().postCode());
+        assertEquals(new ParticipationCursor(day, 7L), ParticipationCursor.decode(page.nextCursor()));
+        verify(participationRepository, never()).findAll();
+    }
+
+    @Test
+    void findPage_lastPage_hasNoCursor() {
+        LocalDate day = LocalDate.of(2024, 3, 4);
+        ParticipationFilter filter = ParticipationFilter.builder().build();
+        when(participationRepository.findSummaries(filter, day, 7L, 3)).thenReturn(List.of(
+                new ParticipationSummary(3L, "Roe", "Jane", day.minusDays(1), "rue du purgatoire", "limbes", 1300, null, Status.PENDING)
+        ));
+
+        ParticipationPageDTO page = participationService.findPage(filter, new ParticipationCursor(day, 7L).encode(), 2);
+
+        assertEquals(1, page.participations().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void findPage_invalidCursorOrSize_shouldThrowException() {
+        ParticipationFilter filter = ParticipationFilter.builder().build();
+
+        assertThrows(IllegalArgumentException.class, () -> participationService.findPage(filter, "pas-un-curseur", null));
+        assertThrows(IllegalArgumentException.class, () -> participationService.findPage(filter, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> participationService.findPage(filter, null, 1000));
+        verifyNoInteractions(participationRepository);
+    }
+
     @Test
-    void testFindAll() {
-        Participation p1 = new Participation();
-        Participation p2 = new Participation();
-        List<Participation> expected = Arrays.asList(p1, p2);
-        when(participationRepository.findAll()).thenReturn(expected);
+    void findDetailById_nonExistingId_shouldThrowException() {
+        when(participationRepository.findDetailById(participation.getId())).thenReturn(Optional.empty());
 
-        List<Participation> result = participationService.findAll();
-        assertEquals(expected, result);
+        assertThrows(EntityNotFoundException.class, () -> participationService.findDetailById(participation.getId()));
     }
 
     @Test
@@ -189,6 +371,98 @@ public class ParticipationServiceImplUnitTest {
         assertEquals(exception.getMessage(), "Participation avec l'id: " + participation.getId() + " introuvable");
     }
 
+    private static final String PHOTO_KEY = "039058c6f2c0cb492c533b0a4d14ef77cc0f78abccced5287d84a1a2011cfb81";
+
+    private void spoolPhotos() {
+        when(photoStore.spool(any(InputStream.class))).thenAnswer(invocation -> SpooledPhoto.spool(invocation.getArgument(0), 16));
+    }
+
+    @Test
+    void testAddPhoto_newPhoto() {
+        MockMultipartFile file = new MockMultipartFile("file", "photo.jpg", "image/jpeg", new byte[]{1, 2, 3});
+        when(participationRepository.findById(participation.getId())).thenReturn(Optional.of(participation));
+        when(participationPhotoRepository.findById(participation.getId())).thenReturn(Optional.empty());
+        spoolPhotos();
+        when(photoStore.save(any(SpooledPhoto.class))).thenReturn(new StoredPhoto(PHOTO_KEY, 3));
+
+        participationService.addPhoto(file, participation.getId(), null);
+
+        ArgumentCaptor<ParticipationPhoto> captor = ArgumentCaptor.forClass(ParticipationPhoto.class);
+        verify(participationPhotoRepository).save(captor.capture());
+        assertSame(participation, captor.getValue().getParticipation());
+        assertEquals(PHOTO_KEY, captor.getValue().getStorageKey());
+        assertEquals(3, captor.getValue().getContentLength());
+        assertEquals("photo.jpg", captor.getValue().getPictureName());
+        assertEquals("image/jpeg", captor.getValue().getPictureType());
+        assertNotNull(captor.getValue().getUploadedAt());
+        verify(photoContentService).acquire(PHOTO_KEY, 3);
+        verify(photoContentService, never()).release(any());
+        verify(eventPublisher).publishEvent(new PhotoStoredEvent(PHOTO_KEY));
+    }
+
+    @Test
+    void testAddPhoto_replacedPhoto_releasesPreviousContent() {
+        MockMultipartFile file = new MockMultipartFile("file", "photo.jpg", "image/jpeg", new byte[]{1, 2, 3});
+        String previousKey = "a".repeat(64);
+        ParticipationPhoto previous = ParticipationPhoto.builder().participation(participation).storageKey(previousKey).build();
+        when(participationRepository.findById(participation.getId())).thenReturn(Optional.of(participation));
+        when(participationPhotoRepository.findById(participation.getId())).thenReturn(Optional.of(previous));
+        spoolPhotos();
+        when(photoStore.save(any(SpooledPhoto.class))).thenReturn(new StoredPhoto(PHOTO_KEY, 3));
+
+        participationService.addPhoto(file, participation.getId(), null);
+
+        verify(photoContentService).acquire(PHOTO_KEY, 3);
+        verify(photoContentService).release(previousKey);
+        assertEquals(PHOTO_KEY, previous.getStorageKey());
+    }
+
+    @Test
+    void testAddPhoto_samePhotoAgain_changesNothing() {
+        MockMultipartFile file = new MockMultipartFile("file", "photo.jpg", "image/jpeg", new byte[]{1, 2, 3});
+        ParticipationPhoto current = ParticipationPhoto.builder().participation(participation).storageKey(PHOTO_KEY).build();
+        when(participationRepository.findById(participation.getId())).thenReturn(Optional.of(participation));
+        when(participationPhotoRepository.findById(participation.getId())).thenReturn(Optional.of(current));
+        spoolPhotos();
+
+        participationService.addPhoto(file, participation.getId(), null);
+
+        verify(photoStore, never()).save(any(SpooledPhoto.class));
+        verify(participationPhotoRepository, never()).save(any());
+        verifyNoInteractions(photoContentService, eventPublisher);
+    }
+
+    @Test
+    void testAddPhoto_knownDigest_doesNotReadUpload() {
+        MockMultipartFile file = new MockMultipartFile("file", "photo.jpg", "image/jpeg", new byte[]{1, 2, 3});
+        ParticipationPhoto current = ParticipationPhoto.builder().participation(participation).storageKey(PHOTO_KEY).build();
+        when(participationRepository.findById(participation.getId())).thenReturn(Optional.of(participation));
+        when(participationPhotoRepository.findById(participation.getId())).thenReturn(Optional.of(current));
+
+        participationService.addPhoto(file, participation.getId(), PHOTO_KEY.toUpperCase());
+
+        verifyNoInteractions(photoStore, photoContentService, eventPublisher);
+    }
+
+    @Test
+    void testAddPhoto_noParticipation_shouldThrowException() {
+        MockMultipartFile file = new MockMultipartFile("file", "photo.jpg", "image/jpeg", new byte[]{1, 2, 3});
+        when(participationRepository.findById(anyLong())).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> participationService.addPhoto(file, participation.getId(), null));
+        verify(participationPhotoRepository, never()).save(any());
+        verifyNoInteractions(photoStore);
+    }
+
+    @Test
+    void testFindPhoto_noPhoto_shouldThrowException() {
+        when(participationPhotoRepository.findById(participation.getId())).thenReturn(Optional.empty());
+
+        Exception exception = assertThrows(EntityNotFoundException.class, () -> participationService.findPhoto(participation.getId()));
+
+        assertEquals("Photo de la participation avec l'id: " + participation.getId() + " introuvable", exception.getMessage());
+    }
+
     @Test
     void testAddSatisfaction_noParticipation_shouldThrowException() {
 
@@ -207,79 +481,142 @@ public class ParticipationServiceImplUnitTest {
         verify(participationRepository, times(1)).save(participation);
         assertEquals(satisfactionForm.satisfactionComment(), participation.getSatisfactionComment());
         assertEquals(satisfactionForm.satisfaction(), participation.getSatisfaction());
+        verify(participationStatRepository).increment(participation.getParticipationDate(), "NAMUR", "", 0, "", "PENDING", -1L);
+        verify(participationStatRepository).increment(participation.getParticipationDate(), "NAMUR", "", 1, "AUTRE", "PENDING", 1L);
+    }
+
+    @Test
+    void testAddSatisfaction_updatesTheCountersInBucketOrder() {
+        participation.setSatisfaction(4);
+        when(participationRepository.findById(anyLong())).thenReturn(Optional.of(participation));
+
+        participationService.addSatisfaction(satisfactionForm);
+
+        InOrder inOrder = inOrder(participationStatRepository);
+        inOrder.verify(participationStatRepository).increment(participation.getParticipationDate(), "NAMUR", "", 1, "AUTRE", "PENDING", 1L);
+        inOrder.verify(participationStatRepository).increment(participation.getParticipationDate(), "NAMUR", "", 4, "", "PENDING", -1L);
+    }
+
+    @Test
+    void testAddSatisfaction_sameBucket_leavesTheCountersAlone() {
+        participation.setSatisfaction(satisfactionForm.satisfaction());
+        participation.setSatisfactionComment(satisfactionForm.satisfactionComment());
+        when(participationRepository.findById(anyLong())).thenReturn(Optional.of(participation));
+
+        participationService.addSatisfaction(satisfactionForm);
+
+        verify(participationStatRepository, never()).increment(any(), any(), any(), anyInt(), any(), any(), anyLong());
     }
 
 // Tests pour la méthode validate
 
     @Test
     void testValidate_noParticipation_shouldThrowException() {
-        when(participationRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(participationRepository.updateStatus(eq(List.of(99L)), eq(EnumSet.of(Status.PENDING)), eq(Status.VALIDATED), isNull(), any())).thenReturn(List.of());
+        when(participationRepository.findStatusesByIdIn(List.of(99L))).thenReturn(List.of());
 
-        assertThrows(EntityNotFoundException.class, () -> participationService.validate(participation.getId()));
+        assertThrows(EntityNotFoundException.class, () -> participationService.validate(participation.getId(), null));
+    }
+
+    @Test
+    void testValidate_withoutParticipationDate_countsInTheUnknownDay() {
+        participation.setParticipationDate(null);
+        when(participationRepository.updateStatus(eq(List.of(99L)), eq(EnumSet.of(Status.PENDING)), eq(Status.VALIDATED), isNull(), any()))
+                .thenReturn(List.of(transitionOf(participation)));
+
+        participationService.validate(participation.getId(), null);
+
+        verify(participationStatRepository).increment(StatBuckets.UNKNOWN_DAY, "NAMUR", "", 0, "", "PENDING", -1L);
+        verify(participationStatRepository).increment(StatBuckets.UNKNOWN_DAY, "NAMUR", "", 0, "", "VALIDATED", 1L);
     }
 
     @Test
     void testValidate() {
-        when(participationRepository.findById(participation.getId())).thenReturn(Optional.of(participation));
+        when(participationRepository.updateStatus(eq(List.of(99L)), eq(EnumSet.of(Status.PENDING)), eq(Status.VALIDATED), isNull(), any()))
+                .thenReturn(List.of(transitionOf(participation)));
 
-        participationService.validate(participation.getId());
+        participationService.validate(participation.getId(), null);
 
-        verify(participationRepository, times(1)).save(participation);
-        assertEquals(Status.VALIDATED, participation.getStatus());
+        verify(participationRepository, never()).findById(any());
+        verify(participationRepository, never()).save(any());
+        verify(participationStatRepository).increment(participation.getParticipationDate(), "NAMUR", "", 0, "", "PENDING", -1L);
+        verify(participationStatRepository).increment(participation.getParticipationDate(), "NAMUR", "", 0, "", "VALIDATED", 1L);
+        verify(eventPublisher).publishEvent(new ParticipationChangedEvent(participation.getId()));
     }
 
-    // pour deny
     @Test
-    void testDeny_noParticipation_shouldThrowException() {
-        when(participationRepository.findById(anyLong())).thenReturn(Optional.empty());
+    void testValidate_outdatedVersion_shouldThrowConflict() {
+        when(participationRepository.updateStatus(eq(List.of(99L)), any(), eq(Status.VALIDATED), eq(3L), any())).thenReturn(List.of());
+        when(participationRepository.findStatusesByIdIn(List.of(99L))).thenReturn(List.of(new ParticipationStatus(99L, Status.PENDING, 4L)));
 
-        assertThrows(EntityNotFoundException.class, () -> participationService.deny(participation.getId()));
+        StatusConflictException exception = assertThrows(StatusConflictException.class, () -> participationService.validate(participation.getId(), 3L));
+
+        assertTrue(exception.getMessage().contains("version 3 attendue"));
+        verifyNoInteractions(participationStatRepository);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
     }
 
+    // pour deny
     @Test
     void testDeny() {
-        when(participationRepository.findById(participation.getId())).thenReturn(Optional.of(participation));
+        when(participationRepository.updateStatus(eq(List.of(99L)), eq(EnumSet.of(Status.PENDING, Status.VALIDATED)), eq(Status.DENIED), isNull(), any()))
+                .thenReturn(List.of(transitionOf(participation)));
 
-        participationService.deny(participation.getId());
+        participationService.deny(participation.getId(), null);
 
-        verify(participationRepository, times(1)).save(participation);
-        assertEquals(Status.DENIED, participation.getStatus());
+        verify(participationStatRepository).increment(participation.getParticipationDate(), "NAMUR", "", 0, "", "DENIED", 1L);
     }
 
     @Test
-    void testShip_noParticipation_shouldThrowException() {
-        when(participationRepository.findById(anyLong())).thenReturn(Optional.empty());
+    void testShip_pendingParticipation_shouldThrowConflict() {
+        when(participationRepository.updateStatus(eq(List.of(99L)), eq(EnumSet.of(Status.VALIDATED)), eq(Status.SHIPPED), isNull(), any())).thenReturn(List.of());
+        when(participationRepository.findStatusesByIdIn(List.of(99L))).thenReturn(List.of(new ParticipationStatus(99L, Status.PENDING, 0L)));
 
-        assertThrows(EntityNotFoundException.class, () -> participationService.ship(participation.getId()));
+        assertThrows(StatusConflictException.class, () -> participationService.ship(participation.getId(), null, "logistique"));
     }
 
     @Test
     void testShip() {
-        when(participationRepository.findById(participation.getId())).thenReturn(Optional.of(participation));
+        participation.setStatus(Status.VALIDATED);
+        when(participationRepository.updateStatus(eq(List.of(99L)), eq(EnumSet.of(Status.VALIDATED)), eq(Status.SHIPPED), isNull(), any()))
+                .thenReturn(List.of(transitionOf(participation)));
 
-        participationService.ship(participation.getId());
+        participationService.ship(participation.getId(), null, "logistique");
 
-        verify(participationRepository, times(1)).save(participation);
-        assertEquals(Status.SHIPPED, participation.getStatus());
+        verify(participationStatRepository).increment(participation.getParticipationDate(), "NAMUR", "", 0, "", "VALIDATED", -1L);
+        verify(participationStatRepository).increment(participation.getParticipationDate(), "NAMUR", "", 0, "", "SHIPPED", 1L);
+    }
+
+    private static StatusTransition transitionOf(Participation participation) {
+        return new StatusTransition(
+                participation.getId(),
+                participation.getStatus(),
+                participation.getParticipationDate(),
+                participation.getAddress().getPostCode(),
+                participation.getProductType(),
+                participation.getSatisfaction(),
+                participation.getSatisfactionComment()
+        );
     }
 
     @Test
     void getWeek_withParticipations() {
         LocalDate today = LocalDate.now();
-        Long[] expectedCounts = {5L, 4L, 3L, 2L, 1L, 6L, 7L};
+        Long[] expectedCounts = {5L, 4L, 3L, 0L, 1L, 6L, 7L};
 
-        when(participationRepository.countParticipationsByParticipationDate(today)).thenReturn(expectedCounts[0]);
-        when(participationRepository.countParticipationsByParticipationDate(today.minusDays(1))).thenReturn(expectedCounts[1]);
-        when(participationRepository.countParticipationsByParticipationDate(today.minusDays(2))).thenReturn(expectedCounts[2]);
-        when(participationRepository.countParticipationsByParticipationDate(today.minusDays(3))).thenReturn(expectedCounts[3]);
-        when(participationRepository.countParticipationsByParticipationDate(today.minusDays(4))).thenReturn(expectedCounts[4]);
-        when(participationRepository.countParticipationsByParticipationDate(today.minusDays(5))).thenReturn(expectedCounts[5]);
-        when(participationRepository.countParticipationsByParticipationDate(today.minusDays(6))).thenReturn(expectedCounts[6]);
+        when(participationStatRepository.countByDayBetween(today.minusDays(6), today, null, null, null)).thenReturn(List.of(
+                new DayCount(today.minusDays(6), 7L),
+                new DayCount(today.minusDays(5), 6L),
+                new DayCount(today.minusDays(4), 1L),
+                new DayCount(today.minusDays(2), 3L),
+                new DayCount(today.minusDays(1), 4L),
+                new DayCount(today, 5L)
+        ));
 
         Long[] weekCounts = participationService.getWeek(today);
 
         assertArrayEquals(expectedCounts, weekCounts);
-        verify(participationRepository, times(7)).countParticipationsByParticipationDate(any());
+        verify(participationStatRepository, times(1)).countByDayBetween(any(), any(), any(), any(), any());
     }
 
     @Test
@@ -295,106 +632,156 @@ public class ParticipationServiceImplUnitTest {
                 "SUNDAY", 1L
         );
 
+        List<DayCount> days = new ArrayList<>();
         for (int i = 0; i <= 6; i++) {
             LocalDate currentDate = start.plusDays(i);
-            when(participationRepository.countParticipationsByParticipationDate(currentDate)).thenReturn(expectedCounts.get(currentDate.getDayOfWeek().toString()));
+            Long count = expectedCounts.get(currentDate.getDayOfWeek().toString());
+            if (count > 0) {
+                days.add(new DayCount(currentDate, count));
+            }
         }
+        when(participationStatRepository.countByDayBetween(start, start.plusDays(6), null, null, null)).thenReturn(days);
 
         Map<String, Long> weekCounts = participationService.getWeekWithDays();
 
         assertEquals(expectedCounts, weekCounts);
-        for (int i = 0; i <= 6; i++) {
-            LocalDate currentDate = start.plusDays(i);
-            verify(participationRepository, times(1)).countParticipationsByParticipationDate(currentDate);
-        }
+        assertEquals(List.of("MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY", "SATURDAY", "SUNDAY"), new ArrayList<>(weekCounts.keySet()));
+        verify(participationStatRepository, times(1)).countByDayBetween(any(), any(), any(), any(), any());
     }
 
     @Test
     void countParticipation_withParticipations() {
         Long expectedCount = 5L;
-        when(participationRepository.countAllByIdIsNotNull()).thenReturn(expectedCount);
+        when(participationStatRepository.countParticipations()).thenReturn(expectedCount);
 
         Long actualCount = participationService.countParticipation();
 
         assertEquals(expectedCount, actualCount);
-        verify(participationRepository, times(1)).countAllByIdIsNotNull();
+        verify(participationStatRepository, times(1)).countParticipations();
+        verifyNoInteractions(participationRepository);
     }
 
     @Test
     void countParticipation_noParticipations() {
         Long expectedCount = 0L;
-        when(participationRepository.countAllByIdIsNotNull()).thenReturn(expectedCount);
+        when(participationStatRepository.countParticipations()).thenReturn(expectedCount);
 
         Long actualCount = participationService.countParticipation();
 
         assertEquals(expectedCount, actualCount);
-        verify(participationRepository, times(1)).countAllByIdIsNotNull();
+        verify(participationStatRepository, times(1)).countParticipations();
     }
 
     @Test
     void countParticipationLast5Months_withParticipations() {
-        Long[] expectedCounts = {120L, 98L, 76L, 54L, 32L};
+        YearMonth currentMonth = YearMonth.now();
+        Long[] expectedCounts = {120L, 98L, 0L, 54L, 32L};
+        List<DayCount> days = new ArrayList<>();
         for (int i = 0; i < 5; i++) {
-            LocalDate startOfMonth = LocalDate.now().withDayOfMonth(1).minusMonths(i);
-            LocalDate endOfMonth = startOfMonth.plusMonths(1).minusDays(1);
-            when(participationRepository.countAllByParticipationDateBetween(startOfMonth, endOfMonth)).thenReturn(expectedCounts[i]);
+            YearMonth month = currentMonth.minusMonths(i);
+            if (expectedCounts[i] > 0) {
+                days.add(new DayCount(month.atDay(1), expectedCounts[i] - 1));
+                days.add(new DayCount(month.atEndOfMonth(), 1L));
+            }
         }
+        when(participationStatRepository.countByDayBetween(currentMonth.minusMonths(4).atDay(1), currentMonth.atEndOfMonth(), null, null, null)).thenReturn(days);
 
         Long[] actualCounts = participationService.countParticipationLast5Months();
 
         assertArrayEquals(expectedCounts, actualCounts);
-        for (int i = 0; i < 5; i++) {
-            LocalDate startOfMonth = LocalDate.now().withDayOfMonth(1).minusMonths(i);
-            LocalDate endOfMonth = startOfMonth.plusMonths(1).minusDays(1);
-            verify(participationRepository, times(1)).countAllByParticipationDateBetween(startOfMonth, endOfMonth);
-        }
+        verify(participationStatRepository, times(1)).countByDayBetween(any(), any(), any(), any(), any());
     }
 
     @Test
     void countParticipationLast5Months_noParticipations() {
-        Long[] expectedCounts = {0L, 0L, 0L, 0L, 0L};
-        for (int i = 0; i < 5; i++) {
-            LocalDate startOfMonth = LocalDate.now().withDayOfMonth(1).minusMonths(i);
-            LocalDate endOfMonth = startOfMonth.plusMonths(1).minusDays(1);
-            when(participationRepository.countAllByParticipationDateBetween(startOfMonth, endOfMonth)).thenReturn(expectedCounts[i]);
-        }
+        when(participationStatRepository.countByDayBetween(any(), any(), any(), any(), any())).thenReturn(List.of());
 
         Long[] actualCounts = participationService.countParticipationLast5Months();
 
-        assertArrayEquals(expectedCounts, actualCounts);
-        for (int i = 0; i < 5; i++) {
-            LocalDate startOfMonth = LocalDate.now().withDayOfMonth(1).minusMonths(i);
-            LocalDate endOfMonth = startOfMonth.plusMonths(1).minusDays(1);
-            verify(participationRepository, times(1)).countAllByParticipationDateBetween(startOfMonth, endOfMonth);
-        }
+        assertArrayEquals(new Long[]{0L, 0L, 0L, 0L, 0L}, actualCounts);
     }
 
     @Test
-    void countByProvince_withParticipations() {
-        Map<String, Long> expectedCounts = Map.of(
-                "Brabant Wallon", 50L,
-                "Liège", 45L,
-                "Namur", 30L,
-                "Hainaut", 80L,
-                "Luxembourg", 20L
-        );
+    void countTimeSeries_rollsDaysUpIntoWeeks() {
+        LocalDate from = LocalDate.of(2024, 1, 3);
+        LocalDate to = LocalDate.of(2024, 1, 16);
+        when(participationStatRepository.countByDayBetween(from, to, Status.SHIPPED, "NAMUR", "Herbicide")).thenReturn(List.of(
+                new DayCount(LocalDate.of(2024, 1, 3), 2L),
+                new DayCount(LocalDate.of(2024, 1, 7), 1L),
+                new DayCount(LocalDate.of(2024, 1, 16), 4L)
+        ));
+
+        Map<LocalDate, Long> series = participationService.countTimeSeries(from, to, Granularity.WEEK, Status.SHIPPED, Province.NAMUR, "Herbicide");
+
+        Map<LocalDate, Long> expected = new LinkedHashMap<>();
+        expected.put(LocalDate.of(2024, 1, 1), 3L);
+        expected.put(LocalDate.of(2024, 1, 8), 0L);
+        expected.put(LocalDate.of(2024, 1, 15), 4L);
+        assertEquals(expected, series);
+        assertEquals(List.copyOf(expected.keySet()), List.copyOf(series.keySet()));
+    }
+
+    @Test
+    void countTimeSeries_invalidRange_shouldThrowException() {
+        LocalDate today = LocalDate.now();
+
+        assertThrows(IllegalArgumentException.class, () -> participationService.countTimeSeries(today, today.minusDays(1), Granularity.DAY, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> participationService.countTimeSeries(today.minusYears(20), today, Granularity.DAY, null, null, null));
+        verifyNoInteractions(participationStatRepository);
+    }
+
+    @Test
+    void findLeadTimes_readsTheWholeDaysOfTheRange() {
+        LocalDate from = LocalDate.of(2024, 3, 1);
+        LocalDate to = LocalDate.of(2024, 3, 31);
+        when(participationStatusEventRepository.findLeadTimes(from.atStartOfDay(), LocalDate.of(2024, 4, 1).atStartOfDay())).thenReturn(List.of(
+                new StageLeadTime(Status.PENDING, Status.VALIDATED, 12, 3600, 86400, 172800),
+                new StageLeadTime(Status.VALIDATED, Status.SHIPPED, 8, 7200, 43200, 90000)
+        ));
+
+        List<LeadTimeDTO> leadTimes = participationService.findLeadTimes(from, to);
+
+        assertEquals(List.of(
+                new LeadTimeDTO(Status.PENDING, Status.VALIDATED, 12, 3600, 86400, 172800),
+                new LeadTimeDTO(Status.VALIDATED, Status.SHIPPED, 8, 7200, 43200, 90000)
+        ), leadTimes);
+    }
+
+    @Test
+    void findLeadTimes_invalidRange_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> participationService.findLeadTimes(LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 1)));
+        verifyNoInteractions(participationStatusEventRepository);
+    }
 
-        when(participationRepository.countParticipationByAddress_PostCodeBetween(1300, 1499)).thenReturn(expectedCounts.get("Brabant Wallon"));
-        when(participationRepository.countParticipationByAddress_PostCodeBetween(4000, 4999)).thenReturn(expectedCounts.get("Liège"));
-        when(participationRepository.countParticipationByAddress_PostCodeBetween(5000, 5680)).thenReturn(expectedCounts.get("Namur"));
-        when(participationRepository.countParticipationByAddress_PostCodeBetween(6000, 6599)).thenReturn(35L);
-        when(participationRepository.countParticipationByAddress_PostCodeBetween(7000, 7999)).thenReturn(45L);
-        when(participationRepository.countParticipationByAddress_PostCodeBetween(6600, 6999)).thenReturn(expectedCounts.get("Luxembourg"));
+    @Test
+    void countByProvince_withParticipations() {
+        Map<String, Long> expectedCounts = new LinkedHashMap<>();
+        expectedCounts.put("Brabant Wallon", 50L);
+        expectedCounts.put("Liège", 45L);
+        expectedCounts.put("Namur", 30L);
+        expectedCounts.put("Hainaut", 80L);
+        expectedCounts.put("Luxembourg", 0L);
+        expectedCounts.put("Bruxelles", 12L);
+        expectedCounts.put("Brabant Flamand", 0L);
+        expectedCounts.put("Anvers", 3L);
+        expectedCounts.put("Limbourg", 0L);
+        expectedCounts.put("Flandre Occidentale", 0L);
+        expectedCounts.put("Flandre Orientale", 0L);
+        when(participationStatRepository.countByProvince()).thenReturn(List.of(
+                new KeyCount("BRABANT_WALLON", 50L),
+                new KeyCount("LIEGE", 45L),
+                new KeyCount("NAMUR", 30L),
+                new KeyCount("HAINAUT", 80L),
+                new KeyCount("BRUXELLES", 12L),
+                new KeyCount("ANVERS", 3L),
+                new KeyCount("", 99L)
+        ));
 
         Map<String, Long> actualCounts = participationService.countByProvince();
 
         assertEquals(expectedCounts, actualCounts);
-        verify(participationRepository, times(1)).countParticipationByAddress_PostCodeBetween(1300, 1499);
-        verify(participationRepository, times(1)).countParticipationByAddress_PostCodeBetween(4000, 4999);
-        verify(participationRepository, times(1)).countParticipationByAddress_PostCodeBetween(5000, 5680);
-        verify(participationRepository, times(1)).countParticipationByAddress_PostCodeBetween(6000, 6599);
-        verify(participationRepository, times(1)).countParticipationByAddress_PostCodeBetween(7000, 7999);
-        verify(participationRepository, times(1)).countParticipationByAddress_PostCodeBetween(6600, 6999);
+        assertEquals(List.copyOf(expectedCounts.keySet()), List.copyOf(actualCounts.keySet()));
+        verify(participationStatRepository, times(1)).countByProvince();
     }
 
     @Test
@@ -405,82 +792,71 @@ public class ParticipationServiceImplUnitTest {
                 "fongicide", 30L,
                 "autre", 25L
         );
-
-        when(participationRepository.countParticipationByProductType("Insecticide")).thenReturn(expectedCounts.get("insecticide"));
-        when(participationRepository.countParticipationByProductType("Herbicide")).thenReturn(expectedCounts.get("herbicide"));
-        when(participationRepository.countParticipationByProductType("Fongicide")).thenReturn(expectedCounts.get("fongicide"));
-        List<Participation> otherParticipations = new ArrayList<>();
-        for (int i = 0; i < expectedCounts.get("autre"); i++) {
-            otherParticipations.add(new Participation());
-        }
-        when(participationRepository.findAllByProductTypeNotIn(List.of("Insecticide", "Herbicide", "Fongicide"))).thenReturn(otherParticipations);
+        when(participationStatRepository.countByProductType()).thenReturn(List.of(
+                new KeyCount("Insecticide", 50L),
+                new KeyCount("Herbicide", 45L),
+                new KeyCount("Fongicide", 30L),
+                new KeyCount("OtherProduct1", 20L),
+                new KeyCount("OtherProduct2", 5L),
+                new KeyCount("", 3L)
+        ));
 
         Map<String, Long> actualCounts = participationService.countByProductType();
 
         assertEquals(expectedCounts, actualCounts);
-        verify(participationRepository, times(1)).countParticipationByProductType("Insecticide");
-        verify(participationRepository, times(1)).countParticipationByProductType("Herbicide");
-        verify(participationRepository, times(1)).countParticipationByProductType("Fongicide");
-        verify(participationRepository, times(1)).findAllByProductTypeNotIn(List.of("Insecticide", "Herbicide", "Fongicide"));
+        verify(participationStatRepository, times(1)).countByProductType();
     }
 
     @Test
     void otherProductType_withVariousProducts() {
         List<String> expectedProductTypes = List.of("OtherProduct1", "OtherProduct2");
-        List<Participation> otherParticipations = new ArrayList<>();
-        for (String productType : expectedProductTypes) {
-            Participation p = new Participation();
-            p.setProductType(productType);
-            otherParticipations.add(p);
-        }
-        when(participationRepository.findAllByProductTypeNotIn(List.of("Insecticide", "Herbicide", "Fongicide"))).thenReturn(otherParticipations);
+        when(participationStatRepository.countByProductType()).thenReturn(List.of(
+                new KeyCount("Insecticide", 50L),
+                new KeyCount("OtherProduct1", 2L),
+                new KeyCount("", 4L),
+                new KeyCount("OtherProduct2", 1L)
+        ));
 
         List<String> actualProductTypes = participationService.otherProductType();
 
         assertEquals(expectedProductTypes, actualProductTypes);
-        verify(participationRepository, times(1)).findAllByProductTypeNotIn(List.of("Insecticide", "Herbicide", "Fongicide"));
+        verify(participationStatRepository, times(1)).countByProductType();
     }
 
 
     @Test
     void otherProductType_withNoOtherProducts() {
-        List<Participation> otherParticipations = new ArrayList<>();
-        when(participationRepository.findAllByProductTypeNotIn(List.of("Insecticide", "Herbicide", "Fongicide"))).thenReturn(otherParticipations);
+        when(participationStatRepository.countByProductType()).thenReturn(List.of(new KeyCount("Herbicide", 4L)));
 
         List<String> actualProductTypes = participationService.otherProductType();
 
         assertTrue(actualProductTypes.isEmpty());
-        verify(participationRepository, times(1)).findAllByProductTypeNotIn(List.of("Insecticide", "Herbicide", "Fongicide"));
+        verify(participationStatRepository, times(1)).countByProductType();
     }
 
     @Test
     void countNotes_withParticipations() {
         Long[] expectedCounts = {10L, 20L, 30L};
-        for (int i = 0; i < 3; i++) {
-            when(participationRepository.countParticipationBySatisfaction(i + 1)).thenReturn(expectedCounts[i]);
-        }
+        when(participationStatRepository.countBySatisfaction()).thenReturn(List.of(
+                new NumberCount(0, 5L),
+                new NumberCount(1, 10L),
+                new NumberCount(2, 20L),
+                new NumberCount(3, 30L)
+        ));
 
         Long[] actualCounts = participationService.countNotes();
 
         assertArrayEquals(expectedCounts, actualCounts);
-        for (int i = 0; i < 3; i++) {
-            verify(participationRepository, times(1)).countParticipationBySatisfaction(i + 1);
-        }
+        verify(participationStatRepository, times(1)).countBySatisfaction();
     }
 
     @Test
     void countNotes_noParticipations() {
-        Long[] expectedCounts = {0L, 0L, 0L};
-        for (int i = 0; i < 3; i++) {
-            when(participationRepository.countParticipationBySatisfaction(i + 1)).thenReturn(expectedCounts[i]);
-        }
+        when(participationStatRepository.countBySatisfaction()).thenReturn(List.of());
 
         Long[] actualCounts = participationService.countNotes();
 
-        assertArrayEquals(expectedCounts, actualCounts);
-        for (int i = 0; i < 3; i++) {
-            verify(participationRepository, times(1)).countParticipationBySatisfaction(i + 1);
-        }
+        assertArrayEquals(new Long[]{0L, 0L, 0L}, actualCounts);
     }
 
     @Test
@@ -491,16 +867,18 @@ public class ParticipationServiceImplUnitTest {
                 "L'appareil ne fonctionnait pas", 3L,
                 "Informations pas claires", 4L
         );
-        for (Map.Entry<String, Long> entry : expectedCounts.entrySet()) {
-            when(participationRepository.countParticipationBySatisfactionCommentIgnoreCase(entry.getKey())).thenReturn(entry.getValue());
-        }
+        when(participationStatRepository.countByCommentCategory()).thenReturn(List.of(
+                new KeyCount("C'était trop long", 1L),
+                new KeyCount("C'était trop court", 2L),
+                new KeyCount("L'appareil ne fonctionnait pas", 3L),
+                new KeyCount("Informations pas claires", 4L),
+                new KeyCount("AUTRE", 6L)
+        ));
 
         Map<String, Long> actualCounts = participationService.countSatisfactionComments();
 
         assertEquals(expectedCounts, actualCounts);
-        for (String key : expectedCounts.keySet()) {
-            verify(participationRepository, times(1)).countParticipationBySatisfactionCommentIgnoreCase(key);
-        }
+        verify(participationStatRepository, times(1)).countByCommentCategory();
     }
 
     @Test
@@ -511,100 +889,207 @@ public class ParticipationServiceImplUnitTest {
                 "L'appareil ne fonctionnait pas", 0L,
                 "Informations pas claires", 0L
         );
-        for (Map.Entry<String, Long> entry : expectedCounts.entrySet()) {
-            when(participationRepository.countParticipationBySatisfactionCommentIgnoreCase(entry.getKey())).thenReturn(entry.getValue());
-        }
+        when(participationStatRepository.countByCommentCategory()).thenReturn(List.of(new KeyCount("", 8L)));
 
         Map<String, Long> actualCounts = participationService.countSatisfactionComments();
 
         assertEquals(expectedCounts, actualCounts);
-        for (String key : expectedCounts.keySet()) {
-            verify(participationRepository, times(1)).countParticipationBySatisfactionCommentIgnoreCase(key);
-        }
     }
 
     @Test
     void allOtherSatisfactionComments_withVariousComments() {
-        List<String> expectedComments = List.of("Autre commentaire 1", "Autre commentaire 2");
-        List<Participation> otherParticipations = new ArrayList<>();
-        for (String comment : expectedComments) {
-            Participation p = new Participation();
-            p.setSatisfactionComment(comment);
-            otherParticipations.add(p);
-        }
-        when(participationRepository.findAllBySatisfactionCommentNotIn(List.of("C'était trop long", "C'était trop court", "L'appareil ne fonctionnait pas", "Informations pas claires"))).thenReturn(otherParticipations);
+        List<String> expectedComments = List.of("Autre commentaire 1", "Autre commentaire 2", "Autre commentaire 2");
+        when(participationRepository.findSatisfactionCommentsNotIn(anyCollection())).thenReturn(expectedComments);
 
         List<String> actualComments = participationService.allOtherSatisfactionComments();
 
         assertEquals(expectedComments, actualComments);
-        verify(participationRepository, times(1)).findAllBySatisfactionCommentNotIn(List.of("C'était trop long", "C'était trop court", "L'appareil ne fonctionnait pas", "Informations pas claires"));
+        verify(participationRepository, times(1)).findSatisfactionCommentsNotIn(anyCollection());
     }
 
     @Test
-    void allOtherSatisfactionComments_withNoOtherComments() {
-        List<Participation> otherParticipations = new ArrayList<>();
-        when(participationRepository.findAllBySatisfactionCommentNotIn(List.of("C'était trop long", "C'était trop court", "L'appareil ne fonctionnait pas", "Informations pas claires"))).thenReturn(otherParticipations);
+    void statsDTOBuilder_readsTheStatisticsTable() {
+        when(participationStatRepository.countBySatisfaction()).thenReturn(List.of(new NumberCount(1, 2L), new NumberCount(3, 5L)));
+        when(participationStatRepository.countByProductType()).thenReturn(List.of(new KeyCount("Insecticide", 4L), new KeyCount("Engrais", 3L)));
+        when(participationStatRepository.countByCommentCategory()).thenReturn(List.of(new KeyCount("AUTRE", 7L)));
+        when(participationStatRepository.countByDayBetween(any(), any(), any(), any(), any())).thenReturn(List.of());
+        when(participationStatRepository.countByProvince()).thenReturn(List.of(new KeyCount("LIEGE", 7L)));
+        when(participationRepository.findSatisfactionCommentsNotIn(anyCollection())).thenReturn(Collections.nCopies(7, "Super"));
+
+        StatsDTO stats = participationService.statsDTOBuilder();
+
+        assertEquals(7L, stats.countParticipants());
+        assertArrayEquals(new Long[]{2L, 0L, 5L}, stats.countNotes());
+        assertEquals(3L, stats.productsUsed().get("autre"));
+        assertEquals(List.of("Engrais"), stats.otherProductsUsed());
+        assertEquals(7L, stats.countByProvince().get("Liège"));
+        assertEquals(7, stats.allOthersSatisfactionComment().size());
+        verify(participationRepository).findSatisfactionCommentsNotIn(anyCollection());
+        verifyNoMoreInteractions(participationRepository);
+    }
 
-        List<String> actualComments = participationService.allOtherSatisfactionComments();
+    @Test
+    void statsDTOBuilder_isCachedUntilAParticipationChanges() {
+        when(participationStatRepository.countBySatisfaction()).thenReturn(List.of(new NumberCount(2, 3L)));
+
+        StatsDTO first = participationService.statsDTOBuilder();
+        StatsDTO cached = participationService.statsDTOBuilder();
+        statsCache.onParticipationChanged(new ParticipationChangedEvent(participation.getId()));
+        participationService.statsDTOBuilder();
+
+        assertSame(first, cached);
+        verify(participationStatRepository, times(2)).countBySatisfaction();
+    }
+
+    @Test
+    void statsDTOBuilder_failedSection_isLeftEmptyAndNotCached() {
+        when(participationStatRepository.countBySatisfaction()).thenReturn(List.of(new NumberCount(2, 3L)));
+        when(participationStatRepository.countByProvince()).thenThrow(new IllegalStateException("boom"));
+
+        StatsDTO stats = participationService.statsDTOBuilder();
+        participationService.statsDTOBuilder();
 
-        assertTrue(actualComments.isEmpty());
-        verify(participationRepository, times(1)).findAllBySatisfactionCommentNotIn(List.of("C'était trop long", "C'était trop court", "L'appareil ne fonctionnait pas", "Informations pas claires"));
+        assertNull(stats.countByProvince());
+        assertEquals(3L, stats.countParticipants());
+        verify(participationStatRepository, times(2)).countBySatisfaction();
+    }
+
+    @Test
+    void rebuildStats_mergesSourcesIntoBuckets() {
+        LocalDate day = LocalDate.of(2024, 3, 4);
+        when(participationRepository.countStatSources()).thenReturn(List.of(
+                new StatSource(day, 4000, "Insecticide", 2, "c'était trop long", Status.PENDING, 2L),
+                new StatSource(day, 4500, "Insecticide", 2, "C'était trop long", Status.PENDING, 3L),
+                new StatSource(day, 1000, null, 1, "Super", Status.SHIPPED, 1L)
+        ));
+
+        participationService.rebuildStats();
+
+        InOrder inOrder = inOrder(participationStatRepository);
+        inOrder.verify(participationStatRepository).lockTable();
+        inOrder.verify(participationStatRepository).deleteAllInBatch();
+        verify(participationStatRepository).increment(day, "LIEGE", "Insecticide", 2, "C'était trop long", "PENDING", 5L);
+        verify(participationStatRepository).increment(day, "BRUXELLES", "", 1, "AUTRE", "SHIPPED", 1L);
+        verify(participationStatRepository, times(2)).increment(any(), any(), any(), anyInt(), any(), any(), anyLong());
+    }
+
+    @Test
+    void changeStatuses_movesBucketsAndReportsRejectedIds() {
+        LocalDate day = LocalDate.of(2024, 3, 4);
+        when(participationRepository.updateStatus(eq(List.of(1L, 2L, 3L, 4L)), eq(EnumSet.of(Status.VALIDATED)), eq(Status.SHIPPED), isNull(), any()))
+                .thenReturn(List.of(
+                        new StatusTransition(1L, Status.VALIDATED, day, 5432, "Insecticide", 0, null),
+                        new StatusTransition(2L, Status.VALIDATED, day, 5100, "Insecticide", 0, null)
+                ));
+        when(participationRepository.findStatusesByIdIn(List.of(3L, 4L))).thenReturn(List.of(new ParticipationStatus(3L, Status.PENDING, 0L)));
+
+        BulkTransitionDTO result = participationService.changeStatuses(Status.SHIPPED, List.of(1L, 2L, 3L, 4L, 2L), null);
+
+        assertEquals(2, result.updated());
+        assertEquals(List.of(
+                new BulkRejectionDTO(3L, Status.PENDING, "Une participation au statut PENDING ne peut pas passer au statut SHIPPED"),
+                new BulkRejectionDTO(4L, null, "Participation introuvable")
+        ), result.rejected());
+        verify(participationStatRepository).increment(day, "NAMUR", "Insecticide", 0, "", "VALIDATED", -2L);
+        verify(participationStatRepository).increment(day, "NAMUR", "Insecticide", 0, "", "SHIPPED", 2L);
+        verify(participationStatRepository, times(2)).increment(any(), any(), any(), anyInt(), any(), any(), anyLong());
+        verify(eventPublisher).publishEvent(new ParticipationChangedEvent(null));
+    }
+
+    @Test
+    void shipAll_leavesOutTheParticipationsClaimedByAnotherOperator() {
+        LocalDate day = LocalDate.of(2024, 3, 4);
+        LocalDateTime expiresAt = LocalDateTime.of(2024, 3, 5, 10, 0);
+        when(shipmentClaimRepository.findActiveHeldByOthers(eq(List.of(1L, 2L)), eq("logistique"), any()))
+                .thenReturn(List.of(new ShipmentClaim(2L, "autre", expiresAt.minusMinutes(15), expiresAt)));
+        when(participationRepository.updateStatus(eq(List.of(1L)), eq(EnumSet.of(Status.VALIDATED)), eq(Status.SHIPPED), isNull(), any()))
+                .thenReturn(List.of(new StatusTransition(1L, Status.VALIDATED, day, 5432, "Insecticide", 0, null)));
+
+        BulkTransitionDTO result = participationService.shipAll(List.of(1L, 2L), null, "logistique");
+
+        assertEquals(1, result.updated());
+        assertEquals(List.of(new BulkRejectionDTO(2L, null, "La participation est réservée par autre jusqu'à " + expiresAt)), result.rejected());
+    }
+
+    @Test
+    void testShip_claimedByAnotherOperator_shouldThrowConflict() {
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(10);
+        when(shipmentClaimRepository.findActiveHeldByOthers(eq(List.of(99L)), eq("logistique"), any()))
+                .thenReturn(List.of(new ShipmentClaim(99L, "autre", expiresAt.minusMinutes(15), expiresAt)));
+
+        assertThrows(StatusConflictException.class, () -> participationService.ship(participation.getId(), null, "logistique"));
+        verify(participationRepository, never()).updateStatus(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void changeStatuses_withFilter_updatesInChunks() {
+        ParticipationFilter filter = ParticipationFilter.builder().status(Status.PENDING).build();
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 1200; id++) {
+            ids.add(id);
+        }
+        when(participationRepository.findIds(filter, 10_001)).thenReturn(ids);
+        when(participationRepository.updateStatus(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            Collection<Long> chunk = invocation.getArgument(0);
+            return chunk.stream().map(id -> new StatusTransition(id, Status.PENDING, LocalDate.now(), 5432, null, 0, null)).toList();
+        });
+
+        BulkTransitionDTO result = participationService.changeStatuses(Status.VALIDATED, null, filter);
+
+        assertEquals(1200, result.updated());
+        assertTrue(result.rejected().isEmpty());
+        verify(participationRepository, times(3)).updateStatus(any(), eq(EnumSet.of(Status.PENDING)), eq(Status.VALIDATED), isNull(), any());
+        verify(transactionOperations, times(3)).execute(any());
+        verify(participationRepository, never()).findStatusesByIdIn(any());
+    }
+
+    @Test
+    void changeStatuses_withoutIdsOrCriteria_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> participationService.changeStatuses(Status.SHIPPED, null, ParticipationFilter.builder().build()));
+        assertThrows(IllegalArgumentException.class, () -> participationService.changeStatuses(Status.PENDING, List.of(1L), null));
+        verify(participationRepository, never()).updateStatus(any(), any(), any(), any(), any());
     }
 
     @Test
     void last3Pending_withPendingParticipations() {
         Long[] expectedIds = {123L, 456L, 789L};
-        List<Participation> top3Participations = new ArrayList<>();
-        for (Long id : expectedIds) {
-            Participation p = new Participation();
-            p.setId(id);
-            p.setStatus(Status.PENDING);
-            top3Participations.add(p);
-        }
-        when(participationRepository.findTop3ByStatusOrderByStatusUpdateDateDesc(Status.PENDING)).thenReturn(top3Participations);
+        when(participationRepository.findIdsByStatusOrderByStatusUpdateDateDesc(Status.PENDING, PageRequest.of(0, 3))).thenReturn(List.of(expectedIds));
 
         Long[] actualIds = participationService.last3Pending();
 
         assertArrayEquals(expectedIds, actualIds);
-        verify(participationRepository, times(1)).findTop3ByStatusOrderByStatusUpdateDateDesc(Status.PENDING);
+        verify(participationRepository, times(1)).findIdsByStatusOrderByStatusUpdateDateDesc(Status.PENDING, PageRequest.of(0, 3));
     }
 
     @Test
     void last3Pending_noPendingParticipations() {
-        when(participationRepository.findTop3ByStatusOrderByStatusUpdateDateDesc(Status.PENDING)).thenReturn(new ArrayList<>());
+        when(participationRepository.findIdsByStatusOrderByStatusUpdateDateDesc(Status.PENDING, PageRequest.of(0, 3))).thenReturn(new ArrayList<>());
 
         Long[] actualIds = participationService.last3Pending();
 
         assertArrayEquals(new Long[0], actualIds);
-        verify(participationRepository, times(1)).findTop3ByStatusOrderByStatusUpdateDateDesc(Status.PENDING);
+        verify(participationRepository, times(1)).findIdsByStatusOrderByStatusUpdateDateDesc(Status.PENDING, PageRequest.of(0, 3));
     }
 
     @Test
     void last3Validated_withValidatedParticipations() {
         Long[] expectedIds = {123L, 456L, 789L};
-        List<Participation> top3Participations = new ArrayList<>();
-        for (Long id : expectedIds) {
-            Participation p = new Participation();
-            p.setId(id);
-            p.setStatus(Status.VALIDATED);
-            top3Participations.add(p);
-        }
-        when(participationRepository.findTop3ByStatusOrderByStatusUpdateDateDesc(Status.VALIDATED)).thenReturn(top3Participations);
+        when(participationRepository.findIdsByStatusOrderByStatusUpdateDateDesc(Status.VALIDATED, PageRequest.of(0, 3))).thenReturn(List.of(expectedIds));
 
         Long[] actualIds = participationService.last3Validated();
 
         assertArrayEquals(expectedIds, actualIds);
-        verify(participationRepository, times(1)).findTop3ByStatusOrderByStatusUpdateDateDesc(Status.VALIDATED);
+        verify(participationRepository, times(1)).findIdsByStatusOrderByStatusUpdateDateDesc(Status.VALIDATED, PageRequest.of(0, 3));
     }
 
     @Test
     void last3Validated_noValidatedParticipations() {
-        when(participationRepository.findTop3ByStatusOrderByStatusUpdateDateDesc(Status.VALIDATED)).thenReturn(new ArrayList<>());
+        when(participationRepository.findIdsByStatusOrderByStatusUpdateDateDesc(Status.VALIDATED, PageRequest.of(0, 3))).thenReturn(new ArrayList<>());
 
         Long[] actualIds = participationService.last3Validated();
 
         assertArrayEquals(new Long[0], actualIds);
-        verify(participationRepository, times(1)).findTop3ByStatusOrderByStatusUpdateDateDesc(Status.VALIDATED);
+        verify(participationRepository, times(1)).findIdsByStatusOrderByStatusUpdateDateDesc(Status.VALIDATED, PageRequest.of(0, 3));
     }
 
     @Test
@@ -0,0 +1,63 @@
+package be.technobel.corder.bl.impl;
+
+import be.technobel.corder.bl.storage.PhotoStore;
+import be.technobel.corder.dl.models.PhotoThumbnail;
+import be.technobel.corder.dl.models.enums.ThumbnailSize;
+import be.technobel.corder.dl.repositories.PhotoContentRepository;
+import be.technobel.corder.dl.repositories.PhotoThumbnailRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PhotoContentServiceImplTest {
+
+    @Mock
+    PhotoContentRepository photoContentRepository;
+    @Mock
+    PhotoThumbnailRepository photoThumbnailRepository;
+    @Mock
+    PhotoStore photoStore;
+
+    PhotoContentServiceImpl photoContentService;
+
+    @BeforeEach
+    public void setUp() {
+        photoContentService = new PhotoContentServiceImpl(
+                photoContentRepository,
+                photoThumbnailRepository,
+                photoStore,
+                TransactionOperations.withoutTransaction(),
+                Duration.ofHours(24),
+                100
+        );
+    }
+
+    @Test
+    void purgeReleased_releasesThumbnailsInsteadOfDeletingTheirBytes() {
+        PhotoThumbnail thumbnail = PhotoThumbnail.builder()
+                .id(1L)
+                .sourceKey("original")
+                .thumbnailSize(ThumbnailSize.SMALL)
+                .storageKey("shared-thumbnail")
+                .build();
+        when(photoContentRepository.deleteReleasedBefore(any(), eq(100))).thenReturn(List.of("original"));
+        when(photoThumbnailRepository.findBySourceKey("original")).thenReturn(List.of(thumbnail));
+
+        assertEquals(1, photoContentService.purgeReleased());
+
+        verify(photoThumbnailRepository).delete(thumbnail);
+        verify(photoContentRepository).release(eq("shared-thumbnail"), any());
+        verify(photoStore).delete("original");
+        verify(photoStore, never()).delete("shared-thumbnail");
+    }
+}
@@ -0,0 +1,105 @@
+package be.technobel.corder.bl.impl;
+
+import be.technobel.corder.bl.services.ParticipationService;
+import be.technobel.corder.dl.models.enums.Status;
+import be.technobel.corder.dl.models.projections.ParticipationSummary;
+import be.technobel.corder.dl.repositories.ParticipationRepository;
+import be.technobel.corder.dl.repositories.ShipmentClaimRepository;
+import be.technobel.corder.pl.models.dtos.BulkRejectionDTO;
+import be.technobel.corder.pl.models.dtos.BulkTransitionDTO;
+import be.technobel.corder.pl.models.dtos.ShipmentClaimDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShipmentServiceImplTest {
+
+    @Mock
+    ShipmentClaimRepository shipmentClaimRepository;
+    @Mock
+    ParticipationRepository participationRepository;
+    @Mock
+    ParticipationService participationService;
+
+    ShipmentServiceImpl shipmentService;
+
+    @BeforeEach
+    public void setUp() {
+        shipmentService = new ShipmentServiceImpl(
+                shipmentClaimRepository,
+                participationRepository,
+                participationService,
+                TransactionOperations.withoutTransaction(),
+                Duration.ofMinutes(15),
+                20
+        );
+    }
+
+    @Test
+    void claim_returnsTheClaimedParticipationsWithTheirLease() {
+        when(shipmentClaimRepository.claimNext(eq("logistique"), any(), any(), eq(10))).thenReturn(List.of(7L));
+        when(participationRepository.findSummariesByIdIn(List.of(7L))).thenReturn(List.of(
+                new ParticipationSummary(7L, "Smith", "Alice", LocalDate.of(2024, 3, 4), "rue du paradis", "ciel", 5432, "Insecticide", Status.VALIDATED)
+        ));
+
+        LocalDateTime before = LocalDateTime.now();
+        ShipmentClaimDTO claim = shipmentService.claim("logistique", null);
+
+        assertEquals(1, claim.participations().size());
+        assertEquals(7L, claim.participations().get(0).id());
+        assertFalse(claim.expiresAt().isBefore(before.plusMinutes(15)));
+    }
+
+    @Test
+    void claim_emptyBacklog_readsNoParticipation() {
+        when(shipmentClaimRepository.claimNext(eq("logistique"), any(), any(), eq(5))).thenReturn(List.of());
+
+        ShipmentClaimDTO claim = shipmentService.claim("logistique", 5);
+
+        assertTrue(claim.participations().isEmpty());
+        verifyNoInteractions(participationRepository);
+    }
+
+    @Test
+    void claim_sizeOutOfBounds_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> shipmentService.claim("logistique", 0));
+        assertThrows(IllegalArgumentException.class, () -> shipmentService.claim("logistique", 21));
+        verifyNoInteractions(shipmentClaimRepository);
+    }
+
+    @Test
+    void complete_shipsOnlyTheParticipationsClaimedByTheOperator() {
+        when(shipmentClaimRepository.deleteActive(eq(List.of(1L, 2L, 3L)), eq("logistique"), any())).thenReturn(List.of(1L, 2L));
+        when(participationService.changeStatuses(Status.SHIPPED, List.of(1L, 2L), null)).thenReturn(new BulkTransitionDTO(
+                Status.SHIPPED,
+                1,
+                List.of(new BulkRejectionDTO(2L, Status.DENIED, "Une participation au statut DENIED ne peut pas passer au statut SHIPPED"))
+        ));
+
+        BulkTransitionDTO result = shipmentService.complete("logistique", List.of(1L, 2L, 3L, 1L));
+
+        assertEquals(1, result.updated());
+        assertEquals(List.of(2L, 3L), result.rejected().stream().map(BulkRejectionDTO::id).toList());
+        assertNull(result.rejected().get(1).currentStatus());
+    }
+
+    @Test
+    void release_returnsTheNumberOfReleasedClaims() {
+        when(shipmentClaimRepository.deleteActive(eq(List.of(1L, 2L)), eq("logistique"), any())).thenReturn(List.of(2L));
+
+        assertEquals(1, shipmentService.release("logistique", List.of(1L, 2L)));
+        assertEquals(0, shipmentService.release("logistique", List.of()));
+    }
+}
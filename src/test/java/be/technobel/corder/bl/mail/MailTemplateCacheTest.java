@@ -0,0 +1,86 @@
+package be.technobel.corder.bl.mail;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templateresolver.StringTemplateResolver;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MailTemplateCacheTest {
+
+    private static final String GREETING_TEMPLATE = "<header><h1 th:text=\"${greeting}\">Merci!</h1></header><main><p>Merci d’avoir rapporté vos déchets !</p></main>";
+    private static final String CONDITIONAL_TEMPLATE = "<p th:if=\"${winner}\">Bravo</p><p th:text=\"${greeting}\"></p>";
+    private static final String UNESCAPED_TEMPLATE = "<div th:utext=\"${greeting}\"></div>";
+    private static final String MIXED_USE_TEMPLATE = "<a th:href=\"@{${link}}\" th:text=\"${link}\"></a><p th:if=\"${greeting}\" th:text=\"${greeting}\"></p>";
+
+    TemplateEngine templateEngine;
+    MailTemplateCache templateCache;
+
+    @BeforeEach
+    public void setUp() {
+        templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(new StringTemplateResolver());
+        templateCache = new MailTemplateCache(templateEngine);
+    }
+
+    @Test
+    void render_matchesThymeleafOutput() {
+        for (String greeting : new String[]{"Merci Alice !", "Merci <Bob> & \"Co\" !", "Merci Zoë !"}) {
+            Map<String, Object> variables = Map.of("greeting", greeting);
+
+            assertEquals(process(GREETING_TEMPLATE, variables), templateCache.render(GREETING_TEMPLATE, variables));
+        }
+    }
+
+    @Test
+    void render_nullValueIsEmpty() {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("greeting", null);
+
+        assertEquals(process(GREETING_TEMPLATE, variables), templateCache.render(GREETING_TEMPLATE, variables));
+    }
+
+    @Test
+    void render_usesPrecompiledFragmentsAfterFirstRender() {
+        templateCache.render(GREETING_TEMPLATE, Map.of("greeting", "Merci Alice !"));
+        templateCache.render(GREETING_TEMPLATE, Map.of("greeting", "Merci Bob !"));
+
+        TemplateRenderMetrics metrics = templateCache.metrics().get(GREETING_TEMPLATE);
+        assertEquals(2, metrics.renders());
+        assertEquals(2, metrics.precompiledRenders());
+    }
+
+    @Test
+    void render_conditionalTemplateFallsBackToThymeleaf() {
+        Map<String, Object> winner = Map.of("winner", true, "greeting", "Merci Alice !");
+        Map<String, Object> loser = Map.of("winner", false, "greeting", "Merci Bob !");
+
+        assertEquals(process(CONDITIONAL_TEMPLATE, winner), templateCache.render(CONDITIONAL_TEMPLATE, winner));
+        assertEquals(process(CONDITIONAL_TEMPLATE, loser), templateCache.render(CONDITIONAL_TEMPLATE, loser));
+        assertEquals(0, templateCache.metrics().get(CONDITIONAL_TEMPLATE).precompiledRenders());
+    }
+
+    @Test
+    void render_variableOutsidePlainTextFallsBackToThymeleaf() {
+        for (String greeting : new String[]{"<b>Merci</b> & bravo", "false"}) {
+            Map<String, Object> unescaped = Map.of("greeting", greeting);
+            Map<String, Object> mixed = Map.of("link", "/merci?nom=Zoë & co", "greeting", greeting);
+
+            assertEquals(process(UNESCAPED_TEMPLATE, unescaped), templateCache.render(UNESCAPED_TEMPLATE, unescaped));
+            assertEquals(process(MIXED_USE_TEMPLATE, mixed), templateCache.render(MIXED_USE_TEMPLATE, mixed));
+        }
+        assertEquals(0, templateCache.metrics().get(UNESCAPED_TEMPLATE).precompiledRenders());
+        assertEquals(0, templateCache.metrics().get(MIXED_USE_TEMPLATE).precompiledRenders());
+    }
+
+    private String process(String template, Map<String, Object> variables) {
+        Context context = new Context();
+        context.setVariables(variables);
+        return templateEngine.process(template, context);
+    }
+}
@@ -0,0 +1,84 @@
+package be.technobel.corder.bl.stats;
+
+import be.technobel.corder.pl.config.exceptions.StatsUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatsSectionsTest {
+
+    private final StatsSections sections = new StatsSections(TransactionOperations.withoutTransaction(), 4, 4, Duration.ofMillis(500));
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        sections.shutdown();
+    }
+
+    @Test
+    void await_runsSectionsConcurrently() {
+        CountDownLatch started = new CountDownLatch(3);
+        StatsSections.Batch batch = sections.batch("test");
+        StatsSections.Section<Boolean> first = batch.submit("first", () -> awaitOthers(started));
+        StatsSections.Section<Boolean> second = batch.submit("second", () -> awaitOthers(started));
+        StatsSections.Section<Boolean> third = batch.submit("third", () -> awaitOthers(started));
+
+        batch.await();
+
+        assertTrue(batch.complete());
+        assertTrue(first.value());
+        assertTrue(second.value());
+        assertTrue(third.value());
+    }
+
+    @Test
+    void await_failedOrLateSectionIsLeftEmpty() {
+        StatsSections.Batch batch = sections.batch("test");
+        StatsSections.Section<String> ok = batch.submit("ok", () -> "ok");
+        StatsSections.Section<String> failing = batch.submit("failing", () -> {
+            throw new IllegalStateException("boom");
+        });
+        StatsSections.Section<String> late = batch.submit("late", () -> {
+            try {
+                Thread.sleep(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "late";
+        });
+
+        long start = System.nanoTime();
+        batch.await();
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertFalse(batch.complete());
+        assertEquals("ok", ok.value());
+        assertNull(failing.value());
+        assertNull(late.value());
+    }
+
+    @Test
+    void await_everySectionFailed_shouldThrowException() {
+        StatsSections.Batch batch = sections.batch("test");
+        batch.submit("failing", () -> {
+            throw new IllegalStateException("boom");
+        });
+
+        assertThrows(StatsUnavailableException.class, batch::await);
+    }
+
+    private static boolean awaitOthers(CountDownLatch started) {
+        started.countDown();
+        try {
+            return started.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
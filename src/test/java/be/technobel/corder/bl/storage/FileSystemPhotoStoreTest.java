@@ -0,0 +1,112 @@
+package be.technobel.corder.bl.storage;
+
+import be.technobel.corder.pl.config.exceptions.PhotoException;
+import be.technobel.corder.pl.config.exceptions.PhotoTooLargeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSystemPhotoStoreTest {
+
+    @TempDir
+    Path root;
+
+    FileSystemPhotoStore photoStore;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        photoStore = new FileSystemPhotoStore(root, DataSize.ofBytes(16));
+    }
+
+    @Test
+    void save_storesFileUnderContentKey() throws Exception {
+        byte[] content = "photo".getBytes(StandardCharsets.UTF_8);
+
+        String key = photoStore.save(content);
+
+        assertEquals(PhotoDigests.keyOf(content), key);
+        assertArrayEquals(content, Files.readAllBytes(root.resolve(key.substring(0, 2)).resolve(key)));
+    }
+
+    @Test
+    void save_sameContentIsStoredOnce() throws Exception {
+        byte[] content = "photo".getBytes(StandardCharsets.UTF_8);
+
+        String first = photoStore.save(content);
+        String second = photoStore.save(content);
+
+        assertEquals(first, second);
+        try (var files = Files.list(root.resolve(first.substring(0, 2)))) {
+            assertEquals(1, files.count());
+        }
+        try (var temps = Files.list(root.resolve("tmp"))) {
+            assertEquals(0, temps.count());
+        }
+    }
+
+    @Test
+    void save_stream_returnsKeyAndSize() {
+        byte[] content = "photo".getBytes(StandardCharsets.UTF_8);
+
+        StoredPhoto stored = photoStore.save(new ByteArrayInputStream(content));
+
+        assertEquals(PhotoDigests.keyOf(content), stored.key());
+        assertEquals(content.length, stored.contentLength());
+        assertTrue(photoStore.exists(stored.key()));
+    }
+
+    @Test
+    void save_tooLarge_shouldThrowExceptionAndLeaveNothing() throws Exception {
+        assertThrows(PhotoTooLargeException.class, () -> photoStore.save(new ByteArrayInputStream(new byte[17])));
+
+        try (var files = Files.list(root)) {
+            assertEquals(1, files.count());
+        }
+        try (var temps = Files.list(root.resolve("tmp"))) {
+            assertEquals(0, temps.count());
+        }
+    }
+
+    @Test
+    void load_streamsFromTheFile() throws Exception {
+        byte[] content = "photo".getBytes(StandardCharsets.UTF_8);
+        String key = photoStore.save(content);
+
+        Resource resource = photoStore.load(key);
+
+        assertInstanceOf(FileSystemResource.class, resource);
+        assertEquals(content.length, resource.contentLength());
+        try (var in = resource.getInputStream()) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void load_missingPhoto_shouldThrowException() {
+        assertThrows(PhotoException.class, () -> photoStore.load(PhotoDigests.keyOf(new byte[]{1})));
+    }
+
+    @Test
+    void load_invalidKey_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> photoStore.load("../../etc/passwd"));
+    }
+
+    @Test
+    void delete_removesTheFile() {
+        String key = photoStore.save(new byte[]{1, 2, 3});
+
+        photoStore.delete(key);
+
+        assertFalse(photoStore.exists(key));
+    }
+}
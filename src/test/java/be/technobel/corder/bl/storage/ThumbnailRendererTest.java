@@ -0,0 +1,53 @@
+package be.technobel.corder.bl.storage;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailRendererTest {
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void read_largePhoto_isSubsampled() throws Exception {
+        BufferedImage image = ThumbnailRenderer.read(new ByteArrayInputStream(png(2048, 1024)), 128);
+
+        assertEquals(256, image.getWidth());
+        assertEquals(128, image.getHeight());
+    }
+
+    @Test
+    void render_keepsAspectRatio() throws Exception {
+        BufferedImage image = ThumbnailRenderer.read(new ByteArrayInputStream(png(1000, 500)), 128);
+
+        BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(ThumbnailRenderer.render(image, 128)));
+
+        assertEquals(128, thumbnail.getWidth());
+        assertEquals(64, thumbnail.getHeight());
+    }
+
+    @Test
+    void render_smallPhoto_isNotEnlarged() throws Exception {
+        BufferedImage image = ThumbnailRenderer.read(new ByteArrayInputStream(png(100, 50)), 512);
+
+        BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(ThumbnailRenderer.render(image, 512)));
+
+        assertEquals(100, thumbnail.getWidth());
+        assertEquals(50, thumbnail.getHeight());
+    }
+
+    @Test
+    void read_notAnImage_shouldThrowException() {
+        assertThrows(IOException.class, () -> ThumbnailRenderer.read(new ByteArrayInputStream(new byte[]{1, 2, 3}), 128));
+    }
+}
@@ -0,0 +1,81 @@
+package be.technobel.corder.bl.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightCacheTest {
+
+    @Test
+    void get_servesTheValueUntilItExpires() {
+        AtomicLong now = new AtomicLong();
+        AtomicInteger loads = new AtomicInteger();
+        SingleFlightCache<Integer> cache = new SingleFlightCache<>(Duration.ofNanos(10), now::get);
+
+        assertEquals(1, cache.get(loads::incrementAndGet));
+        now.set(9);
+        assertEquals(1, cache.get(loads::incrementAndGet));
+        now.set(10);
+        assertEquals(2, cache.get(loads::incrementAndGet));
+    }
+
+    @Test
+    void invalidate_forcesANewComputation() {
+        AtomicInteger loads = new AtomicInteger();
+        SingleFlightCache<Integer> cache = new SingleFlightCache<>(Duration.ofHours(1));
+
+        cache.get(loads::incrementAndGet);
+        cache.invalidate();
+
+        assertEquals(2, cache.get(loads::incrementAndGet));
+    }
+
+    @Test
+    void get_failureIsNotCached() {
+        SingleFlightCache<String> cache = new SingleFlightCache<>(Duration.ofHours(1));
+
+        assertThrows(IllegalStateException.class, () -> cache.get(() -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals("ok", cache.get(() -> "ok"));
+    }
+
+    @Test
+    void get_concurrentMissesShareOneComputation() throws Exception {
+        SingleFlightCache<Integer> cache = new SingleFlightCache<>(Duration.ofHours(1));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> cache.get(() -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return 42;
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertEquals(42, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
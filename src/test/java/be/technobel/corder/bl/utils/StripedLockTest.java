@@ -0,0 +1,54 @@
+package be.technobel.corder.bl.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedLockTest {
+
+    @Test
+    void size_isRoundedToPowerOfTwo() {
+        assertEquals(1, new StripedLock(1).size());
+        assertEquals(64, new StripedLock(64).size());
+        assertEquals(128, new StripedLock(65).size());
+    }
+
+    @Test
+    void withLocks_returnsActionResult() {
+        StripedLock lock = new StripedLock(16);
+
+        assertEquals("ok", lock.withLocks(() -> "ok", "a", null, "a"));
+    }
+
+    @Test
+    void withLocks_sameKeyIsMutuallyExclusive() throws InterruptedException {
+        StripedLock lock = new StripedLock(16);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(200);
+
+        for (int i = 0; i < 200; i++) {
+            // keys given in both orders to make sure the stripes are always acquired in the same order
+            Object[] keys = i % 2 == 0 ? new Object[]{"email", "address"} : new Object[]{"address", "email"};
+            executor.submit(() -> {
+                lock.withLocks(() -> {
+                    maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                    inside.decrementAndGet();
+                    return null;
+                }, keys);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(1, maxInside.get());
+    }
+}
@@ -0,0 +1,40 @@
+package be.technobel.corder.dl.models.enums;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProvinceTest {
+
+    @Test
+    void ofPostCode_coversEveryProvince() {
+        assertEquals(Province.BRUXELLES, Province.ofPostCode(1000));
+        assertEquals(Province.BRABANT_WALLON, Province.ofPostCode(1300));
+        assertEquals(Province.BRABANT_FLAMAND, Province.ofPostCode(1500));
+        assertEquals(Province.ANVERS, Province.ofPostCode(2000));
+        assertEquals(Province.BRABANT_FLAMAND, Province.ofPostCode(3000));
+        assertEquals(Province.LIMBOURG, Province.ofPostCode(3500));
+        assertEquals(Province.LIEGE, Province.ofPostCode(4999));
+        assertEquals(Province.NAMUR, Province.ofPostCode(5680));
+        assertEquals(Province.HAINAUT, Province.ofPostCode(6000));
+        assertEquals(Province.LUXEMBOURG, Province.ofPostCode(6600));
+        assertEquals(Province.HAINAUT, Province.ofPostCode(7999));
+        assertEquals(Province.FLANDRE_OCCIDENTALE, Province.ofPostCode(8000));
+        assertEquals(Province.FLANDRE_ORIENTALE, Province.ofPostCode(9999));
+    }
+
+    @Test
+    void ofPostCode_unknownPostCode_isNull() {
+        assertNull(Province.ofPostCode(null));
+        assertNull(Province.ofPostCode(999));
+        assertNull(Province.ofPostCode(-1));
+        assertNull(Province.ofPostCode(10000));
+    }
+
+    @Test
+    void of_acceptsNameOrLabel() {
+        assertEquals(Province.LIEGE, Province.of("liege"));
+        assertEquals(Province.LIEGE, Province.of("Liège"));
+        assertThrows(IllegalArgumentException.class, () -> Province.of("Paris"));
+    }
+}
@@ -0,0 +1,36 @@
+package be.technobel.corder.dl.models.enums;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatusTest {
+
+    @Test
+    void canMoveTo_followsTheLifecycle() {
+        assertTrue(Status.PENDING.canMoveTo(Status.VALIDATED));
+        assertTrue(Status.PENDING.canMoveTo(Status.DENIED));
+        assertTrue(Status.VALIDATED.canMoveTo(Status.DENIED));
+        assertTrue(Status.VALIDATED.canMoveTo(Status.SHIPPED));
+        assertFalse(Status.PENDING.canMoveTo(Status.SHIPPED));
+        assertFalse(Status.VALIDATED.canMoveTo(Status.VALIDATED));
+    }
+
+    @Test
+    void canMoveTo_finalStatuses_areNeverLeft() {
+        for (Status target : Status.values()) {
+            assertFalse(Status.DENIED.canMoveTo(target));
+            assertFalse(Status.SHIPPED.canMoveTo(target));
+        }
+    }
+
+    @Test
+    void sources_cannotBeModified() {
+        Status.SHIPPED.sources().add(Status.PENDING);
+
+        assertEquals(EnumSet.of(Status.VALIDATED), Status.SHIPPED.sources());
+        assertTrue(Status.PENDING.sources().isEmpty());
+    }
+}
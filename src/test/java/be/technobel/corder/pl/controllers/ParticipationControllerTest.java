@@ -0,0 +1,80 @@
+package be.technobel.corder.pl.controllers;
+
+import be.technobel.corder.bl.services.ParticipationExportService;
+import be.technobel.corder.bl.services.ParticipationService;
+import be.technobel.corder.dl.models.ParticipationPhoto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class ParticipationControllerTest {
+
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    @Mock
+    ParticipationService participationService;
+    @Mock
+    ParticipationExportService participationExportService;
+
+    MockMvc mockMvc;
+    ParticipationPhoto photo;
+
+    @BeforeEach
+    public void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new ParticipationController(participationService, participationExportService)).build();
+        photo = ParticipationPhoto.builder()
+                .id(1L)
+                .pictureName("photo.jpg")
+                .pictureType("image/jpeg")
+                .storageKey("abc123")
+                .contentLength(CONTENT.length)
+                .uploadedAt(LocalDateTime.of(2024, 3, 4, 10, 0))
+                .build();
+        when(participationService.findPhoto(1L)).thenReturn(photo);
+    }
+
+    @Test
+    void getPhoto_sendsTheETagAndRequiresRevalidation() throws Exception {
+        when(participationService.loadPhoto(photo)).thenReturn(new ByteArrayResource(CONTENT));
+
+        mockMvc.perform(get("/participation/photo").param("id", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"abc123\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void getPhoto_matchingETag_answersNotModifiedWithoutOpeningThePhoto() throws Exception {
+        mockMvc.perform(get("/participation/photo").param("id", "1").header(HttpHeaders.IF_NONE_MATCH, "\"abc123\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"abc123\""))
+                .andExpect(content().bytes(new byte[0]));
+
+        verify(participationService, never()).loadPhoto(any());
+    }
+
+    @Test
+    void getPhoto_range_answersPartialContent() throws Exception {
+        when(participationService.loadPhoto(photo)).thenReturn(new ByteArrayResource(CONTENT));
+
+        mockMvc.perform(get("/participation/photo").param("id", "1").header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(content().bytes("2345".getBytes(StandardCharsets.US_ASCII)));
+    }
+}